@@ -1,6 +1,7 @@
 package com.forestfull.admin;
 
 import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageBroadcaster;
 import com.forestfull.chat.message.ChatMessageService;
 import com.forestfull.chat.room.ChatRoomService;
 import com.forestfull.common.CommonResponse;
@@ -12,7 +13,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.StringUtils;
@@ -26,6 +26,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,8 +36,8 @@ public class AdminController {
     private final FileService fileService;
     private final ChatRoomService chatRoomService;
     private final AdminUserService adminUserService;
-    private final SimpMessagingTemplate simpMessagingTemplate;
     private final ChatMessageService chatMessageService;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
 
     @GetMapping("/users")
     public List<User> listUsers() {
@@ -146,13 +147,19 @@ public class AdminController {
                 .user(user)
                 .message(mediaHtmlMessage) // 🚩 HTML 태그를 메시지 본문에 담음
                 .type(ChatDTO.Message.MessageType.TALK)
+                .createdAt(LocalDateTime.now(Clock.systemUTC()))
                 .build();
 
-        ChatDTO.Message saved = chatMessageService.saveMessage(message);
+        // 채팅 전송과 같은 경로로 저장 (WAL 모드에서 DB AUTO_INCREMENT id 가 WAL 발급 id 와 겹치지 않도록)
+        final ChatDTO.Message saved;
+        try {
+            saved = chatMessageService.saveMessageAsync(message).join();
+        } catch (CompletionException e) {
+            return ResponseEntity.internalServerError().body(CommonResponse.fail("Message not saved: " + e.getCause().getMessage()));
+        }
 
-        message.setCreatedAt(LocalDateTime.now(Clock.systemUTC()));
         // --- 5. WebSocket 브로드캐스트 ---
-        simpMessagingTemplate.convertAndSend("/topic/rooms/" + saved.getRoomId(), saved);
+        chatMessageBroadcaster.broadcast(saved);
 
         return ResponseEntity.ok(CommonResponse.ok());
     }
@@ -1,11 +1,19 @@
 package com.forestfull.chat;
 
+import com.forestfull.chat.message.ChatMessageBroadcaster;
 import com.forestfull.chat.message.ChatMessageService;
+import com.forestfull.chat.message.MessageDeduplicator;
+import com.forestfull.chat.message.MessageWireCodec;
+import com.forestfull.chat.presence.PresenceTracker;
+import com.forestfull.chat.ratelimit.SendRateLimiter;
 import com.forestfull.chat.room.ChatRoomService;
+import com.forestfull.chat.unread.UnreadTracker;
 import com.forestfull.domain.User;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Controller;
@@ -14,8 +22,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import java.security.Principal;
 import java.time.Clock;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 @RequestMapping("/app")
@@ -23,7 +32,13 @@ public class ChatController {
 
     private final ChatMessageService chatMessageService;
     private final ChatRoomService chatRoomService;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
+    private final SendRateLimiter sendRateLimiter;
     private final SimpMessagingTemplate simpMessagingTemplate;
+    private final PresenceTracker presenceTracker;
+    private final UnreadTracker unreadTracker;
+    private final MessageDeduplicator messageDeduplicator;
+    private final MessageWireCodec messageWireCodec;
 
     // 채팅 메시지 전송
     @MessageMapping("/chat.sendMessage")
@@ -32,24 +47,69 @@ public class ChatController {
 
         Object userDetails = token.getPrincipal();
         if (!(userDetails instanceof User user)) return;
+        // 방이 없는 메시지는 한도/중복 등록 전에 버림
+        if (message.getRoomId() == null) return;
+
+        // 재전송이면 한도를 쓰지 않고, 새로 저장하지도 않고 처음 저장된 메시지를 보낸 사람에게만 돌려줌
+        final String clientMessageId = message.getClientMessageId();
+        final CompletableFuture<ChatDTO.Message> pending = new CompletableFuture<>();
+        final boolean deduplicated = clientMessageId != null && !clientMessageId.isBlank()
+                && clientMessageId.length() <= MessageDeduplicator.MAX_CLIENT_MESSAGE_ID_LENGTH;
+        if (!deduplicated) message.setClientMessageId(null);
+        if (deduplicated) {
+            final CompletableFuture<ChatDTO.Message> original = messageDeduplicator.claim(user.getId(), clientMessageId, pending);
+            if (original != null) {
+                original.thenAccept(saved -> simpMessagingTemplate.convertAndSendToUser(principal.getName(), "/queue/acks", messageWireCodec.encode(saved)));
+                return;
+            }
+        }
+
+        // 사용자/방 전송 한도 초과 시 저장, 브로드캐스트 없이 보낸 사람에게만 오류 전송
+        SendRateLimiter.Scope limited = sendRateLimiter.tryAcquire(user, message.getRoomId());
+        if (limited != null) {
+            if (deduplicated) messageDeduplicator.release(user.getId(), clientMessageId, pending);
+            simpMessagingTemplate.convertAndSendToUser(principal.getName(), "/queue/errors", ChatDTO.ErrorMessage.builder()
+                    .code("RATE_LIMITED_" + limited.name())
+                    .message("메시지를 너무 빠르게 보내고 있습니다. 잠시 후 다시 시도해 주세요.")
+                    .roomId(message.getRoomId())
+                    .build());
+            return;
+        }
 
         message.setUser(user);
         message.setType(ChatDTO.Message.MessageType.TALK);
-        ChatDTO.Message saved = chatMessageService.saveMessage(message);
         message.setCreatedAt(LocalDateTime.now(Clock.systemUTC()));
 
-        simpMessagingTemplate.convertAndSend("/topic/rooms/" + saved.getRoomId(), saved);
+        // write-behind 모드에서는 배치 저장이 끝나 id 가 채워진 뒤 브로드캐스트 (inbound 스레드는 대기하지 않음)
+        // 보낸 메시지까지는 보낸 사람이 읽은 것으로 처리
+        chatMessageService.saveMessageAsync(message)
+                .thenAccept(saved -> {
+                    pending.complete(saved);
+                    unreadTracker.onMessage(saved);
+                    chatMessageBroadcaster.broadcast(saved);
+                    unreadTracker.markRead(saved.getRoomId(), user.getId(), user.getUsername(), saved.getId());
+                })
+                .exceptionally(e -> {
+                    log.error("💥 Message not saved: room={} user={} cause={}", message.getRoomId(), user.getId(), e.getMessage());
+                    // 저장 실패는 같은 clientMessageId 로 다시 보낼 수 있게 등록 취소
+                    if (deduplicated) messageDeduplicator.release(user.getId(), clientMessageId, pending);
+                    pending.completeExceptionally(e);
+                    return null;
+                });
     }
 
     // 입장 이벤트
     @MessageMapping("/chat.enter")
-    public void enterRoom(@Payload ChatDTO.Participant participant, Principal principal) {
+    public void enterRoom(@Payload ChatDTO.Participant participant, SimpMessageHeaderAccessor headerAccessor, Principal principal) {
         if (!(principal instanceof UsernamePasswordAuthenticationToken token)) return;
 
         Object userDetails = token.getPrincipal();
         if (!(userDetails instanceof User user)) return;
 
-        chatRoomService.enterRoom(participant.getRoomId(), user.getId());
+        ChatDTO.Participant joined = toParticipant(participant.getRoomId(), user);
+        boolean entered = chatRoomService.enterRoom(joined);
+        // 이미 참여 중이어도 세션은 기록 (재접속 시 대기 중인 자동 퇴장 취소)
+        presenceTracker.onEnter(headerAccessor.getSessionId(), user.getId(), participant.getRoomId());
 
         ChatDTO.Message enterMsg = new ChatDTO.Message();
         enterMsg.setRoomId(participant.getRoomId());
@@ -57,27 +117,34 @@ public class ChatController {
         enterMsg.setUser(user);
         enterMsg.setMessage(user.getDisplayName() + "님이 입장했습니다");
 
-        simpMessagingTemplate.convertAndSend(
-                "/topic/rooms/" + participant.getRoomId(),
-                enterMsg
-        );
+        chatMessageBroadcaster.broadcast(enterMsg);
 
-        List<ChatDTO.Participant> updated = chatRoomService.getParticipants(participant.getRoomId());
-        simpMessagingTemplate.convertAndSend(
-                "/topic/rooms/" + participant.getRoomId() + "/participants",
-                updated
-        );
+        // 참여자 변경분은 입장 커밋 시 ChatRoomService 가 전송, 처음 들어온 방은 입장 시점까지 읽은 것으로 시작
+        if (entered) unreadTracker.markRead(participant.getRoomId(), user.getId(), user.getUsername(), null);
+    }
+
+    // 읽음 위치 갱신 (lastReadId 가 없으면 방의 최신 메시지까지)
+    @MessageMapping("/chat.read")
+    public void markRead(@Payload ChatDTO.ReadReceipt receipt, Principal principal) {
+        if (!(principal instanceof UsernamePasswordAuthenticationToken token)) return;
+
+        Object userDetails = token.getPrincipal();
+        if (!(userDetails instanceof User user)) return;
+
+        unreadTracker.markRead(receipt.getRoomId(), user.getId(), user.getUsername(), receipt.getLastReadId());
     }
 
     // 퇴장 이벤트
     @MessageMapping("/chat.leave")
-    public void leaveRoom(@Payload ChatDTO.Participant participant, Principal principal) {
+    public void leaveRoom(@Payload ChatDTO.Participant participant, SimpMessageHeaderAccessor headerAccessor, Principal principal) {
         if (!(principal instanceof UsernamePasswordAuthenticationToken token)) return;
 
         Object userDetails = token.getPrincipal();
         if (!(userDetails instanceof User user)) return;
 
+        // 참여자 변경분은 퇴장 커밋 시 ChatRoomService 가 전송
         chatRoomService.leaveRoom(participant.getRoomId(), user.getId());
+        presenceTracker.onLeave(headerAccessor.getSessionId(), user.getId(), participant.getRoomId());
 
         ChatDTO.Message leaveMsg = new ChatDTO.Message();
         leaveMsg.setRoomId(participant.getRoomId());
@@ -85,16 +152,16 @@ public class ChatController {
         leaveMsg.setUser(user);
         leaveMsg.setMessage(user.getDisplayName() + "님이 퇴장했습니다");
 
-        simpMessagingTemplate.convertAndSend(
-                "/topic/rooms/" + participant.getRoomId(),
-                leaveMsg
-        );
-
+        chatMessageBroadcaster.broadcast(leaveMsg);
+    }
 
-        List<ChatDTO.Participant> updated = chatRoomService.getParticipants(participant.getRoomId());
-        simpMessagingTemplate.convertAndSend(
-                "/topic/rooms/" + participant.getRoomId() + "/participants",
-                updated
-        );
+    private static ChatDTO.Participant toParticipant(Long roomId, User user) {
+        return ChatDTO.Participant.builder()
+                .roomId(roomId)
+                .userId(user.getId())
+                .username(user.getUsername())
+                .displayName(user.getDisplayName())
+                .profileImage(user.getProfileImage())
+                .build();
     }
-}
\ No newline at end of file
+}
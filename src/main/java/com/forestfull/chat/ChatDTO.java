@@ -1,5 +1,8 @@
 package com.forestfull.chat;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.forestfull.chat.message.EncodedMessage;
 import com.forestfull.domain.User;
 import lombok.*;
 
@@ -23,6 +26,7 @@ public class ChatDTO {
         }
 
         private Long id;                  // DB 저장용
+        private String clientMessageId;   // 클라이언트가 붙이는 재전송 식별자 (선택, 같은 값이면 한 번만 저장)
         private Long roomId;
         private User user;
 
@@ -31,6 +35,96 @@ public class ChatDTO {
         private LocalDateTime createdAt;     // 송신 시간
         private String createdBy;         // DB 저장용
         private String updatedBy;
+
+        private Long epoch;               // 방 seq 세대 (서버 재시작/방 로그 재생성 시 변경)
+        private Long seq;                 // 방별 단조 증가 순번 (브로드캐스트 시 부여)
+
+        @JsonIgnore
+        @ToString.Exclude
+        @EqualsAndHashCode.Exclude
+        private transient EncodedMessage encoded; // 클라이언트 전송용 직렬화 결과 (한 번 만들어 브로드캐스트/캐시/재전송에 재사용)
+    }
+
+    /**
+     * 🔹 클라이언트 전송용 메시지 DTO (v1)
+     * Message 는 User 전체(권한, 감사 필드 등)를 품고 있으므로, 화면에 필요한 필드만 남긴 형태로 한 번만 직렬화해 내보냅니다.
+     * 필드를 바꾸면 v 를 올립니다.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class WireMessage {
+        public static final int VERSION = 1;
+
+        private int v;
+        private Long id;
+        private String clientMessageId;
+        private Long roomId;
+        private Message.MessageType type;
+        private String message;
+        private LocalDateTime createdAt;
+        private Long epoch;
+        private Long seq;
+        private WireUser user;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class WireUser {
+        private Long id;
+        private String username;
+        private String displayName;
+        private String profileImage;
+    }
+
+    /**
+     * 🔹 재접속 시 놓친 메시지 DTO
+     * reset 이 true 면 메모리로 이어붙일 수 없으므로 최근 메시지를 다시 로드해야 합니다.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ResumeResult {
+        private Long epoch;
+        private long lastSeq;
+        private boolean reset;
+        private List<EncodedMessage> messages;   // seq 오름차순
+    }
+
+    /**
+     * 🔹 이전 메시지 페이지 DTO
+     * nextCursor 를 다음 요청의 cursor 로 그대로 넘기면 더 오래된 메시지를 이어서 조회합니다.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MessagePage {
+        private List<EncodedMessage> messages;   // 최신순
+        private String nextCursor;        // 더 없으면 null
+        private boolean hasMore;
+    }
+
+    /**
+     * 🔹 방 구독 스냅샷 DTO (/topic/rooms/{roomId} 구독 시 그 구독에만 한 번 전송, snapshot 헤더로 구분)
+     * messages 는 최신순이며, lastSeq 이하 seq 의 메시지는 모두 포함되어 있습니다. 이후 메시지는 구독으로 받습니다. (id 로 중복 제거)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RoomSnapshot {
+        private Long roomId;
+        private Long epoch;
+        private long lastSeq;
+        private List<EncodedMessage> messages;
+        private ParticipantSnapshot participants;
     }
 
     /**
@@ -66,10 +160,88 @@ public class ChatDTO {
         private String profileImage;
     }
 
+    /**
+     * 🔹 참여자 변경 DTO (/topic/rooms/{roomId}/participants)
+     * version 은 방별로 1씩 증가하며(DB 발급, 모든 노드 공통), 건너뛴 version 이 있거나 RESYNC 를 받으면 클라이언트는 스냅샷을 다시 받아야 합니다.
+     */
     @Data
     @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ParticipantDelta {
+        public enum Type {
+            ADDED, REMOVED,
+            RESYNC      // 서버가 DB 에서 목록을 다시 읽음 (participant 없음)
+        }
+
+        private Long roomId;
+        private long version;
+        private Type type;
+        private Participant participant;
+    }
+
+    /**
+     * 🔹 참여자 스냅샷 DTO (초기 동기화 / version 불일치 시)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ParticipantSnapshot {
+        private Long roomId;
+        private long version;
+        private List<Participant> participants;
+    }
+
+    /**
+     * 🔹 요청 거절 DTO (/user/queue/errors 로 보낸 사람에게만 전송)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorMessage {
+        private String code;
+        private String message;
+        private Long roomId;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
     public static class RoomParticipantUpdate {
         private Long roomId;
         private int count;
     }
-}
\ No newline at end of file
+
+    /**
+     * 🔹 읽음 위치 DTO
+     * /app/chat.read 로 받고(roomId, lastReadId), /topic/rooms/{roomId}/receipts 로 방 참여자에게 묶어서 전송합니다.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReadReceipt {
+        private Long roomId;
+        private Long userId;
+        private String username;
+        private Long lastReadId;
+    }
+
+    /**
+     * 🔹 안 읽은 메시지 수 DTO (/user/queue/unread, GET /api/chat/rooms/unread)
+     * capped 가 true 면 실제로는 count 보다 많습니다. (예: 999+)
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UnreadCount {
+        private Long roomId;
+        private int count;
+        private boolean capped;
+        private Long lastReadId;
+    }
+}
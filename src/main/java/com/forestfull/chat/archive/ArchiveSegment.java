@@ -0,0 +1,251 @@
+package com.forestfull.chat.archive;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 🔹 보관 메시지 세그먼트 (불변, memory-mapped)
+ * 파일 구성: header(magic, version) | block(deflate)... | 블록 색인((roomId, firstId, lastId, offset, length, count)...) | footer
+ * 한 블록에는 한 방의 메시지만 id 오름차순으로 들어가므로, 블록 색인만으로 방/id 범위에 해당하는 블록을 찾습니다.
+ */
+final class ArchiveSegment {
+
+    static final String SUFFIX = ".arc";
+
+    private static final int MAGIC = 0x43484152; // "CHAR"
+    private static final int VERSION = 1;
+    private static final int FOOTER_BYTES = 8 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 * 4 + 4 + 4;
+
+    /**
+     * 희소 색인 항목: 블록 하나의 방과 id 범위
+     */
+    record Block(ArchiveSegment segment, long roomId, long firstId, long lastId, long offset, int length, int count) {
+        List<ChatDTO.Message> read() throws IOException {
+            return segment.decode(this);
+        }
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final List<Block> blocks;
+
+    private ArchiveSegment(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final int size = buffer.capacity();
+        if (size < 8 + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an archive segment: " + path);
+        }
+
+        final int indexOffset = (int) buffer.getLong(size - FOOTER_BYTES);
+        final int blockCount = buffer.getInt(size - 4);
+        final List<Block> loaded = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            final int position = indexOffset + i * INDEX_ENTRY_BYTES;
+            loaded.add(new Block(this,
+                    buffer.getLong(position),
+                    buffer.getLong(position + 8),
+                    buffer.getLong(position + 16),
+                    buffer.getLong(position + 24),
+                    buffer.getInt(position + 32),
+                    buffer.getInt(position + 36)));
+        }
+        this.blocks = List.copyOf(loaded);
+    }
+
+    static ArchiveSegment open(Path path) throws IOException {
+        return new ArchiveSegment(path);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    List<Block> blocks() {
+        return blocks;
+    }
+
+    private List<ChatDTO.Message> decode(Block block) throws IOException {
+        final ByteBuffer compressed = buffer.slice((int) block.offset(), block.length());
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream(block.length() * 4);
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            final byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                final int n = inflater.inflate(chunk);
+                if (n == 0 && inflater.needsInput()) throw new IOException("Truncated archive block in " + path);
+                raw.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt archive block in " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw.toByteArray()));
+        final List<ChatDTO.Message> messages = new ArrayList<>(block.count());
+        for (int i = 0; i < block.count(); i++) {
+            final long id = in.readLong();
+            final long memberId = in.readLong();
+            final long createdAt = in.readLong();
+            final int createdAtNanos = in.readInt();
+            final String message = readString(in);
+            final String createdBy = readString(in);
+
+            final User user = new User();
+            user.setId(memberId < 0 ? null : memberId);
+            user.setName(readString(in));
+            user.setEmail(readString(in));
+            user.setDisplayName(readString(in));
+            user.setProfileImage(readString(in));
+
+            messages.add(ChatDTO.Message.builder()
+                    .id(id)
+                    .roomId(block.roomId())
+                    .user(user)
+                    .message(message)
+                    .createdAt(createdAt == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(createdAt, createdAtNanos, ZoneOffset.UTC))
+                    .createdBy(createdBy)
+                    .build());
+        }
+        return messages;
+    }
+
+    /**
+     * 방별 id 오름차순으로 정렬된 메시지를 blockSize 개씩 압축해 씁니다. 임시 파일에 쓴 뒤 rename 합니다.
+     */
+    static ArchiveSegment write(Path target, List<List<ChatDTO.Message>> roomRuns, int blockSize) throws IOException {
+        final Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        final List<long[]> index = new ArrayList<>();
+
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            long position = 8;
+
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                for (List<ChatDTO.Message> run : roomRuns) {
+                    for (int from = 0; from < run.size(); from += blockSize) {
+                        final List<ChatDTO.Message> block = run.subList(from, Math.min(run.size(), from + blockSize));
+                        final byte[] compressed = compress(deflater, encode(block));
+                        out.write(compressed);
+                        index.add(new long[]{
+                                block.get(0).getRoomId(),
+                                block.get(0).getId(),
+                                block.get(block.size() - 1).getId(),
+                                position,
+                                compressed.length,
+                                block.size()});
+                        position += compressed.length;
+                    }
+                }
+            } finally {
+                deflater.end();
+            }
+
+            if (position > Integer.MAX_VALUE) throw new IOException("Archive segment too large: " + target);
+            for (long[] entry : index) {
+                out.writeLong(entry[0]);
+                out.writeLong(entry[1]);
+                out.writeLong(entry[2]);
+                out.writeLong(entry[3]);
+                out.writeInt((int) entry[4]);
+                out.writeInt((int) entry[5]);
+            }
+            out.writeLong(position);
+            out.writeInt(index.size());
+            out.flush();
+        }
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+
+    private static byte[] encode(List<ChatDTO.Message> block) throws IOException {
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream(block.size() * 128);
+        final DataOutputStream out = new DataOutputStream(raw);
+        for (ChatDTO.Message message : block) {
+            final User user = message.getUser();
+            out.writeLong(message.getId());
+            out.writeLong(user == null || user.getId() == null ? -1 : user.getId());
+            if (message.getCreatedAt() == null) {
+                out.writeLong(Long.MIN_VALUE);
+                out.writeInt(0);
+            } else {
+                out.writeLong(message.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(message.getCreatedAt().getNano());
+            }
+            writeString(out, message.getMessage());
+            writeString(out, message.getCreatedBy());
+            writeString(out, user == null ? null : user.getName());
+            writeString(out, user == null ? null : user.getEmail());
+            writeString(out, user == null ? null : user.getDisplayName());
+            writeString(out, user == null ? null : user.getProfileImage());
+        }
+        return raw.toByteArray();
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+        final byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            final int n = deflater.deflate(chunk);
+            compressed.write(chunk, 0, n);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
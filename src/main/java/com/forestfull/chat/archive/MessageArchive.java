@@ -0,0 +1,229 @@
+package com.forestfull.chat.archive;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 오래된 메시지 보관소 (cold tier)
+ * min-age 보다 오래된 메시지를 압축 세그먼트 파일로 옮기고 chat_message 에서 삭제합니다.
+ * 읽기는 방별 블록 색인(희소 색인)으로 필요한 블록만 풀어서 처리하며, 최근 연 블록은 작은 LRU 에 남겨 둡니다.
+ * 세그먼트는 이 노드의 디스크에 있으므로 여러 노드에서 읽으려면 dir 을 공유 스토리지로 두고 한 노드에서만 enabled 로 실행해야 합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageArchive {
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.archive.dir:./data/archive}")
+    private String dir;
+
+    @Value("${app.chat.archive.min-age-days:90}")
+    private long minAgeDays;
+
+    @Value("${app.chat.archive.batch-size:50000}")
+    private int batchSize;
+
+    @Value("${app.chat.archive.block-size:256}")
+    private int blockSize;
+
+    @Value("${app.chat.archive.block-cache-size:64}")
+    private int blockCacheSize;
+
+    private Path directory;
+    private final AtomicLong generation = new AtomicLong();
+
+    // key: roomId, value: firstId 오름차순 블록 목록 (교체만 하는 불변 리스트)
+    private final ConcurrentMap<Long, List<ArchiveSegment.Block>> blocksByRoom = new ConcurrentHashMap<>();
+    private Map<ArchiveSegment.Block, List<ChatDTO.Message>> blockCache;
+    private Counter archivedCounter;
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+
+        blockCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ArchiveSegment.Block, List<ChatDTO.Message>> eldest) {
+                return size() > blockCacheSize;
+            }
+        });
+
+        int segments = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(ArchiveSegment.SUFFIX)) {
+                    register(ArchiveSegment.open(file));
+                    generation.set(Math.max(generation.get(), generationOf(name)));
+                    segments++;
+                }
+            }
+        }
+
+        archivedCounter = meterRegistry.counter("chat.message.archive.archived");
+        Gauge.builder("chat.message.archive.rooms", blocksByRoom, Map::size).register(meterRegistry);
+        log.info("Message archive opened: dir={} segments={} rooms={} enabled={}", directory, segments, blocksByRoom.size(), enabled);
+    }
+
+    /**
+     * beforeId 보다 작은 보관 메시지를 최신순으로 최대 limit 개 반환합니다. (beforeId 가 null 이면 가장 최근 보관분부터)
+     */
+    public List<ChatDTO.Message> findBefore(Long roomId, Long beforeId, int limit) {
+        final List<ArchiveSegment.Block> blocks = blocksByRoom.get(roomId);
+        if (blocks == null || limit <= 0) return List.of();
+
+        final long before = beforeId == null ? Long.MAX_VALUE : beforeId;
+        final NavigableMap<Long, ChatDTO.Message> found = new TreeMap<>(Comparator.reverseOrder());
+
+        // lastId 가 큰 블록부터 풀고, 이미 limit 개를 모았으며 다음 블록이 모두 더 오래됐으면 중단
+        final List<ArchiveSegment.Block> candidates = new ArrayList<>(blocks);
+        candidates.sort(Comparator.comparingLong(ArchiveSegment.Block::lastId).reversed());
+        for (ArchiveSegment.Block block : candidates) {
+            if (block.firstId() >= before) continue;
+            if (found.size() >= limit && block.lastId() < kthKey(found, limit)) break;
+
+            for (ChatDTO.Message message : read(block)) {
+                if (message.getId() < before) found.putIfAbsent(message.getId(), message);
+            }
+        }
+        return found.values().stream().limit(limit).collect(Collectors.toList());
+    }
+
+    /**
+     * 검색 결과처럼 id 를 알고 있는 보관 메시지 조회
+     *
+     * @param roomIds key: messageId, value: roomId
+     */
+    public List<ChatDTO.Message> findByIds(Map<Long, Long> roomIds) {
+        final List<ChatDTO.Message> result = new ArrayList<>();
+        roomIds.forEach((id, roomId) -> {
+            final List<ArchiveSegment.Block> blocks = blocksByRoom.get(roomId);
+            if (blocks == null) return;
+            for (ArchiveSegment.Block block : blocks) {
+                if (id < block.firstId() || id > block.lastId()) continue;
+                final ChatDTO.Message message = read(block).stream()
+                        .filter(m -> id.equals(m.getId()))
+                        .findFirst()
+                        .orElse(null);
+                if (message != null) {
+                    result.add(message);
+                    return;
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 🔹 보관 작업: created_at 이 min-age 보다 오래된 메시지를 batch-size 개씩 세그먼트로 쓰고 DB 에서 삭제
+     * 세그먼트를 fsync 한 뒤에 삭제하므로 중간에 멈추면 DB 와 보관소에 같은 메시지가 남을 수 있고, 읽을 때 id 로 중복을 제거합니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.archive.interval-millis:3600000}", initialDelayString = "${app.chat.archive.initial-delay-millis:60000}")
+    void archive() {
+        if (!enabled) return;
+
+        long afterId = 0;
+        long total = 0;
+        try {
+            while (true) {
+                final List<ChatDTO.Message> batch = chatMessageMapper.findArchivableMessages(minAgeDays, afterId, batchSize);
+                if (batch.isEmpty()) break;
+
+                // 방별로 묶고 방 안에서는 id 오름차순 (조회가 id 순이므로 그대로 유지됨)
+                final Map<Long, List<ChatDTO.Message>> byRoom = batch.stream()
+                        .collect(Collectors.groupingBy(ChatDTO.Message::getRoomId, TreeMap::new, Collectors.toList()));
+                final ArchiveSegment segment = ArchiveSegment.write(nextPath(), new ArrayList<>(byRoom.values()), blockSize);
+                register(segment);
+
+                final List<Long> ids = batch.stream().map(ChatDTO.Message::getId).toList();
+                for (int from = 0; from < ids.size(); from += 1000) {
+                    chatMessageMapper.deleteMessagesByIds(ids.subList(from, Math.min(ids.size(), from + 1000)));
+                }
+
+                afterId = ids.get(ids.size() - 1);
+                total += batch.size();
+                archivedCounter.increment(batch.size());
+                if (batch.size() < batchSize) break;
+            }
+        } catch (IOException e) {
+            log.error("💥 Message archive failed after {} messages: {}", total, e.getMessage(), e);
+        }
+        if (total > 0) log.info("💾 Archived {} messages older than {} days", total, minAgeDays);
+    }
+
+    private List<ChatDTO.Message> read(ArchiveSegment.Block block) {
+        final List<ChatDTO.Message> cached = blockCache.get(block);
+        if (cached != null) return cached;
+        try {
+            final List<ChatDTO.Message> messages = List.copyOf(block.read());
+            blockCache.put(block, messages);
+            return messages;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void register(ArchiveSegment segment) {
+        segment.blocks().stream()
+                .collect(Collectors.groupingBy(ArchiveSegment.Block::roomId))
+                .forEach((roomId, added) -> blocksByRoom.compute(roomId, (k, existing) -> {
+                    final List<ArchiveSegment.Block> merged = new ArrayList<>(existing == null ? List.of() : existing);
+                    merged.addAll(added);
+                    merged.sort(Comparator.comparingLong(ArchiveSegment.Block::firstId));
+                    return List.copyOf(merged);
+                }));
+    }
+
+    private static long kthKey(NavigableMap<Long, ChatDTO.Message> found, int k) {
+        return found.keySet().stream().skip(k - 1L).findFirst().orElse(Long.MIN_VALUE);
+    }
+
+    private Path nextPath() {
+        return directory.resolve(String.format("arc-%019d%s", generation.incrementAndGet(), ArchiveSegment.SUFFIX));
+    }
+
+    private static long generationOf(String fileName) {
+        try {
+            return Long.parseLong(fileName.substring("arc-".length(), fileName.length() - ArchiveSegment.SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.forestfull.chat.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * 🔹 노드 간 브로드캐스트 버스
+ * publish 는 메시지당 한 번만 호출하고, 이벤트는 발행 노드를 제외한 다른 노드들의 listener 로만 전달됩니다.
+ * (발행 노드는 자기 세션에 직접 전달하므로 중복 전달이 없습니다.)
+ */
+public interface ClusterBus extends AutoCloseable {
+
+    String nodeId();
+
+    void publish(ClusterEvent event);
+
+    void subscribe(Consumer<ClusterEvent> listener);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,55 @@
+package com.forestfull.chat.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Configuration
+public class ClusterConfig {
+
+    public enum Mode {
+        MEMORY,     // 단일 JVM (기본값, 단일 인스턴스 운영)
+        TCP         // 노드 간 TCP 연결
+    }
+
+    @Bean(destroyMethod = "close")
+    ClusterBus clusterBus(@Value("${app.cluster.mode:MEMORY}") Mode mode,
+                          @Value("${app.cluster.node-id:${random.uuid}}") String nodeId,
+                          @Value("${app.cluster.bind-address:127.0.0.1}") String bindAddress,
+                          @Value("${app.cluster.port:7600}") int port,
+                          @Value("${app.cluster.secret:}") String secret,
+                          @Value("${app.cluster.peer-queue-capacity:10000}") int peerQueueCapacity,
+                          @Value("${app.cluster.peers:}") String peers) throws IOException {
+        final ClusterEventCodec codec = new ClusterEventCodec();
+        log.info("Cluster bus mode={} node={}", mode, nodeId);
+
+        return switch (mode) {
+            case MEMORY -> new InMemoryClusterBus(nodeId, new InMemoryClusterBus.Hub(), codec);
+            case TCP -> new TcpClusterBus(nodeId, bindAddress, port, secret, peerQueueCapacity, parsePeers(peers), codec);
+        };
+    }
+
+    /**
+     * "host1:7600,host2:7600" 형식
+     */
+    static List<InetSocketAddress> parsePeers(String peers) {
+        if (!StringUtils.hasText(peers)) return List.of();
+
+        return Arrays.stream(peers.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(peer -> {
+                    final int colon = peer.lastIndexOf(':');
+                    return new InetSocketAddress(peer.substring(0, colon), Integer.parseInt(peer.substring(colon + 1)));
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,39 @@
+package com.forestfull.chat.cluster;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.forestfull.chat.ChatDTO;
+
+/**
+ * 🔹 노드 간에 전달되는 이벤트
+ * 발행 노드는 자기 세션에 직접 전달하고, 다른 노드들은 버스로 받은 이벤트를 자기 세션에만 전달합니다.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "kind")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ClusterEvent.RoomMessage.class, name = "ROOM_MESSAGE"),
+        @JsonSubTypes.Type(value = ClusterEvent.RoomParticipantDelta.class, name = "ROOM_PARTICIPANT_DELTA"),
+        @JsonSubTypes.Type(value = ClusterEvent.ParticipantCountDelta.class, name = "PARTICIPANT_COUNT_DELTA"),
+        @JsonSubTypes.Type(value = ClusterEvent.RoomReadReceipt.class, name = "ROOM_READ_RECEIPT")
+})
+public sealed interface ClusterEvent {
+
+    /** /topic/rooms/{roomId} 메시지 */
+    record RoomMessage(ChatDTO.Message message) implements ClusterEvent {
+    }
+
+    /** /topic/rooms/{roomId}/participants 변경 (version 은 발행 노드가 DB 에서 받은 값, 받는 노드도 그대로 사용) */
+    record RoomParticipantDelta(ChatDTO.ParticipantDelta delta) implements ClusterEvent {
+    }
+
+    /** ParticipantService 인원수 증감 */
+    record ParticipantCountDelta(Long roomId, int delta) implements ClusterEvent {
+    }
+
+    /** 읽음 위치 변경 (받는 노드는 캐시 갱신 + 자기 세션에 전달, DB 저장은 발행 노드만) */
+    record RoomReadReceipt(ChatDTO.ReadReceipt receipt) implements ClusterEvent {
+    }
+
+    /** 전송 단위: 발행 노드 id + 이벤트 */
+    record Envelope(String origin, ClusterEvent event) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.forestfull.chat.cluster;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 🔹 ClusterEvent 직렬화 (JSON)
+ * 메모리 버스도 같은 코덱을 거쳐 노드끼리 객체를 공유하지 않도록 합니다.
+ */
+public class ClusterEventCodec {
+
+    private final ObjectMapper mapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            // User 의 getter 전용 속성(authorities, username 등)은 역직렬화 시 무시
+            .disable(MapperFeature.USE_GETTERS_AS_SETTERS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    public byte[] encode(ClusterEvent.Envelope envelope) {
+        try {
+            return mapper.writeValueAsBytes(envelope);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ClusterEvent.Envelope decode(byte[] bytes) {
+        try {
+            return mapper.readValue(bytes, ClusterEvent.Envelope.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
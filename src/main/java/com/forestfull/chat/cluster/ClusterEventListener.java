@@ -0,0 +1,47 @@
+package com.forestfull.chat.cluster;
+
+import com.forestfull.chat.message.ChatMessageBroadcaster;
+import com.forestfull.chat.message.RecentMessageCache;
+import com.forestfull.chat.room.ParticipantService;
+import com.forestfull.chat.search.MessageSearchIndex;
+import com.forestfull.chat.unread.UnreadTracker;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 🔹 다른 노드에서 온 이벤트를 이 노드의 세션에만 전달합니다. (다시 버스로 발행하지 않음)
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterEventListener {
+
+    private final ClusterBus clusterBus;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
+    private final RecentMessageCache recentMessageCache;
+    private final ParticipantService participantService;
+    private final MessageSearchIndex messageSearchIndex;
+    private final UnreadTracker unreadTracker;
+
+    @PostConstruct
+    void subscribe() {
+        clusterBus.subscribe(this::onEvent);
+    }
+
+    private void onEvent(ClusterEvent event) {
+        switch (event) {
+            case ClusterEvent.RoomMessage e -> {
+                // 이 노드의 최근 메시지 링에도 넣어야 이 노드가 응답하는 기록 조회에 빠지지 않음 (id 없는 입장/퇴장 메시지는 무시됨)
+                recentMessageCache.append(e.message());
+                chatMessageBroadcaster.deliver(e.message());
+                // 다른 노드에서 저장된 메시지도 이 노드 검색 색인에 반영 (id 없는 입장/퇴장 메시지는 무시됨)
+                messageSearchIndex.submit(e.message());
+                unreadTracker.onMessage(e.message());
+            }
+            // 다른 노드의 입장/퇴장도 이 노드 인덱스에 version 순서대로 반영해 목록 조회가 DB 를 거치지 않게 함
+            case ClusterEvent.RoomParticipantDelta e -> participantService.deliverParticipantDelta(e.delta());
+            case ClusterEvent.ParticipantCountDelta e -> participantService.applyCountDelta(e.roomId(), e.delta());
+            case ClusterEvent.RoomReadReceipt e -> unreadTracker.applyRemoteRead(e.receipt());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.forestfull.chat.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 🔹 같은 JVM 안의 노드끼리 연결하는 버스
+ * 같은 Hub 에 join 한 버스들이 하나의 클러스터가 됩니다. 단일 인스턴스 운영 시에는 노드가 자기 하나뿐이라 전달 대상이 없습니다.
+ */
+@Slf4j
+public class InMemoryClusterBus implements ClusterBus {
+
+    /**
+     * 노드 목록. 테스트에서는 하나의 Hub 로 여러 노드를 띄울 수 있습니다.
+     */
+    public static class Hub {
+        private final List<InMemoryClusterBus> members = new CopyOnWriteArrayList<>();
+    }
+
+    private final String nodeId;
+    private final Hub hub;
+    private final ClusterEventCodec codec;
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public InMemoryClusterBus(String nodeId, Hub hub, ClusterEventCodec codec) {
+        this.nodeId = nodeId;
+        this.hub = hub;
+        this.codec = codec;
+        hub.members.add(this);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(ClusterEvent event) {
+        final byte[] frame = codec.encode(new ClusterEvent.Envelope(nodeId, event));
+        for (InMemoryClusterBus member : hub.members) {
+            if (member != this) member.receive(frame);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        hub.members.remove(this);
+    }
+
+    private void receive(byte[] frame) {
+        final ClusterEvent.Envelope envelope = codec.decode(frame);
+        if (nodeId.equals(envelope.origin())) return;
+
+        for (Consumer<ClusterEvent> listener : listeners) {
+            try {
+                listener.accept(envelope.event());
+            } catch (Exception e) {
+                log.error("💥 Cluster event delivery failed on {}: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.forestfull.chat.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 🔹 TCP 기반 노드 간 버스
+ * 각 노드는 bindAddress:port 로 다른 노드의 연결을 받고, peers 로 지정된 노드들에 직접 연결해 길이 접두(4byte) 프레임을 보냅니다.
+ * 연결마다 받는 쪽이 보낸 nonce 에 공유 secret 의 HMAC 으로 응답해야 하며, 응답하지 못한 연결의 프레임은 받지 않습니다. (암호화는 하지 않으므로 내부망 전용)
+ * publish 는 peer 별 큐에 넣기만 하고, peer 마다 전용 스레드가 연결/재연결(backoff)과 전송을 맡습니다.
+ * peer 가 내려가 큐가 가득 차면 그 peer 로 가는 이벤트는 버립니다.
+ */
+@Slf4j
+public class TcpClusterBus implements ClusterBus {
+
+    private static final int MAX_FRAME_BYTES = 4 * 1024 * 1024;
+    private static final int NONCE_BYTES = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final byte[] HANDSHAKE_LABEL = "forestfull-cluster-v1".getBytes(StandardCharsets.US_ASCII);
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 5000;
+    private static final long MIN_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+    private static final int MAX_WRITE_BATCH = 256;
+
+    private final String nodeId;
+    private final ClusterEventCodec codec;
+    private final SecretKeySpec secretKey;
+    private final int peerQueueCapacity;
+    private final ServerSocket serverSocket;
+    private final SecureRandom random = new SecureRandom();
+    private final ConcurrentMap<InetSocketAddress, PeerLink> links = new ConcurrentHashMap<>();
+    private final Set<Socket> inbound = ConcurrentHashMap.newKeySet();
+    private final List<Consumer<ClusterEvent>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    public TcpClusterBus(String nodeId,
+                         String bindAddress,
+                         int port,
+                         String secret,
+                         int peerQueueCapacity,
+                         List<InetSocketAddress> peers,
+                         ClusterEventCodec codec) throws IOException {
+        if (secret == null || secret.isBlank()) throw new IllegalArgumentException("Cluster bus secret is required");
+
+        this.nodeId = nodeId;
+        this.codec = codec;
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        this.peerQueueCapacity = peerQueueCapacity;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+        peers.forEach(this::addPeer);
+
+        final Thread acceptor = new Thread(this::acceptLoop, "cluster-bus-acceptor-" + nodeId);
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Cluster bus node {} listening on {}:{} peers={}", nodeId, bindAddress, getLocalPort(), peers);
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void addPeer(InetSocketAddress peer) {
+        final PeerLink link = new PeerLink(peer);
+        if (links.putIfAbsent(peer, link) == null) link.start();
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 호출 스레드에서는 소켓 I/O 를 하지 않습니다. (브로드캐스트 경로에서 호출됨)
+     */
+    @Override
+    public void publish(ClusterEvent event) {
+        final byte[] frame = codec.encode(new ClusterEvent.Envelope(nodeId, event));
+        links.values().forEach(link -> link.offer(frame));
+    }
+
+    @Override
+    public void subscribe(Consumer<ClusterEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        links.values().forEach(PeerLink::close);
+        links.clear();
+        inbound.forEach(TcpClusterBus::closeQuietly);
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                inbound.add(socket);
+                final Thread reader = new Thread(() -> readLoop(socket), "cluster-bus-reader-" + nodeId);
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                if (running) log.warn("Cluster bus {} accept failed: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+
+    private void readLoop(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            if (!authenticate(socket, in)) {
+                log.warn("💥 Cluster bus {} rejected unauthenticated connection from {}", nodeId, socket.getRemoteSocketAddress());
+                return;
+            }
+
+            while (running) {
+                final int length = in.readInt();
+                if (length <= 0 || length > MAX_FRAME_BYTES) throw new IOException("Invalid frame length " + length);
+
+                final byte[] frame = new byte[length];
+                in.readFully(frame);
+                dispatch(codec.decode(frame));
+            }
+        } catch (EOFException ignored) {
+            // peer 가 연결을 닫음
+        } catch (IOException e) {
+            if (running) log.warn("Cluster bus {} read failed: {}", nodeId, e.getMessage());
+        } finally {
+            inbound.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * 받는 쪽: nonce 를 보내고 HMAC(secret, label + nonce) 응답을 확인합니다. 응답은 handshake timeout 안에 와야 합니다.
+     */
+    private boolean authenticate(Socket socket, DataInputStream in) throws IOException {
+        final byte[] nonce = new byte[NONCE_BYTES];
+        random.nextBytes(nonce);
+
+        socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+        final DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.write(nonce);
+        out.flush();
+
+        final byte[] response = new byte[NONCE_BYTES];
+        in.readFully(response);
+        socket.setSoTimeout(0);
+        return MessageDigest.isEqual(response, sign(nonce));
+    }
+
+    private byte[] sign(byte[] nonce) {
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(HANDSHAKE_LABEL);
+            return mac.doFinal(nonce);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void dispatch(ClusterEvent.Envelope envelope) {
+        if (nodeId.equals(envelope.origin())) return;
+
+        for (Consumer<ClusterEvent> listener : listeners) {
+            try {
+                listener.accept(envelope.event());
+            } catch (Exception e) {
+                log.error("💥 Cluster event delivery failed on {}: {}", nodeId, e.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * peer 하나로 가는 단방향 연결. 큐와 전송 스레드를 따로 두어 한 peer 의 장애가 publish 나 다른 peer 를 막지 않게 합니다.
+     */
+    private final class PeerLink {
+        private final InetSocketAddress address;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(peerQueueCapacity);
+        private final AtomicLong dropped = new AtomicLong();
+        private final Thread writer;
+        private volatile Socket socket;
+
+        PeerLink(InetSocketAddress address) {
+            this.address = address;
+            this.writer = new Thread(this::writeLoop, "cluster-bus-writer-" + nodeId + "-" + address);
+            this.writer.setDaemon(true);
+        }
+
+        void start() {
+            writer.start();
+        }
+
+        void offer(byte[] frame) {
+            if (queue.offer(frame)) return;
+            if (dropped.getAndIncrement() == 0) log.warn("Cluster bus {} -> {} queue full, dropping events", nodeId, address);
+        }
+
+        void close() {
+            writer.interrupt();
+            final Socket current = socket;
+            if (current != null) closeQuietly(current);
+        }
+
+        private void writeLoop() {
+            final List<byte[]> batch = new ArrayList<>(MAX_WRITE_BATCH);
+            DataOutputStream out = null;
+            long backoff = MIN_BACKOFF_MILLIS;
+
+            while (running) {
+                try {
+                    if (batch.isEmpty()) {
+                        final byte[] first = queue.poll(1, TimeUnit.SECONDS);
+                        if (first == null) continue;
+                        batch.add(first);
+                        queue.drainTo(batch, MAX_WRITE_BATCH - 1);
+                    }
+
+                    try {
+                        if (out == null) out = connect();
+                        for (byte[] frame : batch) {
+                            out.writeInt(frame.length);
+                            out.write(frame);
+                        }
+                        out.flush();
+                        batch.clear();
+                        backoff = MIN_BACKOFF_MILLIS;
+                    } catch (IOException e) {
+                        // 보내지 못한 batch 는 재연결 후 다시 보냄
+                        if (running) log.warn("Cluster bus {} -> {} send failed, retry in {}ms: {}", nodeId, address, backoff, e.getMessage());
+                        out = null;
+                        final Socket broken = socket;
+                        if (broken != null) closeQuietly(broken);
+                        TimeUnit.MILLISECONDS.sleep(backoff);
+                        backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 보내는 쪽: 받은 nonce 에 HMAC 으로 응답한 뒤 프레임을 보냅니다.
+         */
+        private DataOutputStream connect() throws IOException {
+            final Socket connected = new Socket();
+            socket = connected;
+            connected.setTcpNoDelay(true);
+            connected.connect(address, CONNECT_TIMEOUT_MILLIS);
+
+            connected.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            final byte[] nonce = new byte[NONCE_BYTES];
+            new DataInputStream(connected.getInputStream()).readFully(nonce);
+            connected.setSoTimeout(0);
+
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connected.getOutputStream()));
+            out.write(sign(nonce));
+
+            final long lost = dropped.getAndSet(0);
+            if (lost > 0) log.warn("Cluster bus {} -> {} reconnected, {} events dropped while unreachable", nodeId, address, lost);
+            return out;
+        }
+    }
+}
@@ -1,7 +1,8 @@
 package com.forestfull.chat.config;
 
-import com.auth0.jwt.interfaces.DecodedJWT;
 import com.forestfull.common.token.JwtUtil;
+import com.forestfull.common.token.VerifiedTokenCache;
+import com.forestfull.domain.User;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +10,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketHandler;
 import org.springframework.web.socket.server.HandshakeInterceptor;
@@ -22,7 +24,11 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class JwtHandshakeInterceptor implements HandshakeInterceptor {
 
-    private final JwtUtil jwtUtil;
+    // 핸드셰이크에서 한 번 검증한 결과 (STOMP CONNECT 에서 세션 principal 로 사용)
+    public static final String AUTHENTICATION_ATTRIBUTE = "STOMP_AUTHENTICATION";
+    public static final String EXPIRES_AT_ATTRIBUTE = "STOMP_TOKEN_EXPIRES_AT";
+
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
     public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Map<String, Object> attributes) {
@@ -33,15 +39,17 @@ public class JwtHandshakeInterceptor implements HandshakeInterceptor {
 
         if (cookies == null) return false;
 
-        final Optional<DecodedJWT> jwtCookie = Arrays.stream(cookies)
+        final Optional<VerifiedTokenCache.Verified> jwtCookie = Arrays.stream(cookies)
                 .filter(c -> JwtUtil.TOKEN_TYPE.JWT.name().equals(c.getName()))
-                .map(cookie -> jwtUtil.verifyToken(cookie.getValue()))
+                .map(cookie -> verifiedTokenCache.verify(cookie.getValue()))
                 .findFirst();
 
         if (jwtCookie.isEmpty()) return false;
 
         try {
-            attributes.put(JwtUtil.TOKEN_TYPE.JWT_PAYLOAD.name(), jwtCookie.get().getPayload());
+            final User user = jwtCookie.get().user();
+            attributes.put(AUTHENTICATION_ATTRIBUTE, new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+            attributes.put(EXPIRES_AT_ATTRIBUTE, jwtCookie.get().expiresAtMillis());
             return true;
         } catch (Exception e) {
             return false;
@@ -0,0 +1,299 @@
+package com.forestfull.chat.config;
+
+import com.forestfull.chat.message.RoomSnapshotSender;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 clientOutboundChannel 실행기: 세션별 송신 큐 + 느린 소비자 정책
+ * 세션마다 한 번에 한 프레임만 전송하고 나머지는 세션 큐에 쌓습니다. 큐가 buffer-size-limit 를 넘거나
+ * 전송 하나가 send-time-limit 이상 걸리면 설정된 정책을 순서대로 적용해 세션당 메모리를 제한합니다.
+ */
+@Slf4j
+@Component
+public class OutboundSessionExecutor implements Executor, WebSocketHandlerDecoratorFactory, DisposableBean {
+
+    public enum SlowConsumerPolicy {
+        COALESCE_PRESENCE,  // 같은 참여자 목적지는 가장 최근 것만 남김 (version 이 건너뛰면 클라이언트가 스냅샷으로 재동기화)
+        DROP_OLDEST_TALK,   // 오래된 방 메시지부터 버림
+        DISCONNECT          // 세션 종료
+    }
+
+    private static final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private static final String ROOM_MESSAGE_PATTERN = "/topic/rooms/{roomId:\\d+}";
+    private static final String PRESENCE_PATTERN = "/topic/rooms/{roomId:\\d+}/participants";
+    private static final int DRAIN_BATCH = 32;
+
+    private final long bufferSizeLimit;
+    private final long sendTimeLimitMillis;
+    private final List<SlowConsumerPolicy> policies;
+    private final ExecutorService pool;
+    private final Map<SlowConsumerPolicy, Counter> policyCounters = new EnumMap<>(SlowConsumerPolicy.class);
+
+    private final ConcurrentMap<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    public OutboundSessionExecutor(@Value("${app.chat.outbound.buffer-size-limit:524288}") long bufferSizeLimit,
+                                   @Value("${app.chat.outbound.send-time-limit-millis:10000}") long sendTimeLimitMillis,
+                                   @Value("${app.chat.outbound.policies:COALESCE_PRESENCE,DROP_OLDEST_TALK,DISCONNECT}") List<SlowConsumerPolicy> policies,
+                                   @Value("${app.chat.outbound.pool-size:0}") int poolSize,
+                                   MeterRegistry meterRegistry) {
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.policies = policies;
+        this.pool = Executors.newFixedThreadPool(poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors() * 2, r -> {
+            Thread t = new Thread(r, "client-outbound");
+            t.setDaemon(true);
+            return t;
+        });
+        for (SlowConsumerPolicy policy : SlowConsumerPolicy.values()) {
+            policyCounters.put(policy, meterRegistry.counter("chat.outbound.slow-consumer", "policy", policy.name()));
+        }
+    }
+
+    public long getBufferSizeLimit() {
+        return bufferSizeLimit;
+    }
+
+    public long getSendTimeLimitMillis() {
+        return sendTimeLimitMillis;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        final String sessionId = task instanceof MessageHandlingRunnable runnable
+                ? SimpMessageHeaderAccessor.getSessionId(runnable.getMessage().getHeaders())
+                : null;
+        if (sessionId == null) {
+            pool.execute(task);
+            return;
+        }
+
+        final SessionQueue queue = queues.computeIfAbsent(sessionId, SessionQueue::new);
+        if (queue.offer(new Task(task, ((MessageHandlingRunnable) task).getMessage()))) {
+            pool.execute(queue::drain);
+        }
+    }
+
+    /**
+     * 세션 등록/해제를 위해 WebSocketHandler 를 감쌈 (DISCONNECT 정책에서 세션을 닫을 때 사용)
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                final SessionQueue queue = queues.remove(session.getId());
+                if (queue != null) queue.clear();
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * 세션을 닫습니다. (인증 만료 등) 이 노드에 없는 세션이면 false
+     */
+    public boolean closeSession(String sessionId, CloseStatus status) {
+        final WebSocketSession session = sessions.get(sessionId);
+        if (session == null) return false;
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Close failed for session {}: {}", sessionId, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * 전송 하나가 send-time-limit 를 넘겨 멈춰 있는 세션은 새 프레임이 오지 않아도 정리
+     */
+    @Scheduled(fixedDelayString = "${app.chat.outbound.sweep-millis:1000}")
+    void sweepStuckSessions() {
+        final long now = System.currentTimeMillis();
+        queues.values().forEach(queue -> {
+            final long since = queue.inFlightSince;
+            if (since > 0 && now - since > sendTimeLimitMillis) queue.applyPolicies(true);
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private record Task(Runnable runnable, String destination, int bytes, boolean snapshot) {
+        Task(Runnable runnable, Message<?> message) {
+            this(runnable,
+                    SimpMessageHeaderAccessor.getDestination(message.getHeaders()),
+                    message.getPayload() instanceof byte[] payload ? payload.length : 0,
+                    NativeMessageHeaderAccessor.getFirstNativeHeader(RoomSnapshotSender.SNAPSHOT_HEADER, message.getHeaders()) != null);
+        }
+
+        // 구독 스냅샷은 같은 방 목적지라도 버리지 않음 (버리면 클라이언트가 REST 로 다시 받아야 함)
+        boolean isRoomMessage() {
+            return !snapshot && destination != null && pathMatcher.match(ROOM_MESSAGE_PATTERN, destination);
+        }
+
+        boolean isPresence() {
+            return destination != null && pathMatcher.match(PRESENCE_PATTERN, destination);
+        }
+    }
+
+    private final class SessionQueue {
+        private final String sessionId;
+        private final Deque<Task> tasks = new ArrayDeque<>();
+        private long bytes;
+        private boolean draining;
+        private volatile long inFlightSince;
+
+        SessionQueue(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        /**
+         * @return drain 을 새로 시작해야 하면 true
+         */
+        synchronized boolean offer(Task task) {
+            tasks.addLast(task);
+            bytes += task.bytes();
+
+            final long since = inFlightSince;
+            final boolean stuck = since > 0 && System.currentTimeMillis() - since > sendTimeLimitMillis;
+            if (bytes > bufferSizeLimit || stuck) applyPolicies(stuck);
+
+            if (draining || tasks.isEmpty()) return false;
+            draining = true;
+            return true;
+        }
+
+        synchronized void applyPolicies(boolean stuck) {
+            for (SlowConsumerPolicy policy : policies) {
+                if (!stuck && bytes <= bufferSizeLimit) return;
+
+                switch (policy) {
+                    case COALESCE_PRESENCE -> {
+                        if (coalescePresence()) policyCounters.get(policy).increment();
+                    }
+                    case DROP_OLDEST_TALK -> {
+                        if (dropOldestRoomMessages()) policyCounters.get(policy).increment();
+                    }
+                    case DISCONNECT -> {
+                        policyCounters.get(policy).increment();
+                        disconnect();
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean coalescePresence() {
+            // 뒤에서부터 훑어 목적지별 최신 참여자 변경만 남김
+            final Set<String> seen = new HashSet<>();
+            boolean removed = false;
+            for (Iterator<Task> it = tasks.descendingIterator(); it.hasNext(); ) {
+                final Task task = it.next();
+                if (task.isPresence() && !seen.add(task.destination())) {
+                    it.remove();
+                    bytes -= task.bytes();
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        private boolean dropOldestRoomMessages() {
+            boolean removed = false;
+            for (Iterator<Task> it = tasks.iterator(); it.hasNext() && bytes > bufferSizeLimit; ) {
+                final Task task = it.next();
+                if (task.isRoomMessage()) {
+                    it.remove();
+                    bytes -= task.bytes();
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+
+        private void disconnect() {
+            clear();
+            final WebSocketSession session = sessions.get(sessionId);
+            if (session == null) return;
+
+            log.warn("Slow consumer disconnected: session={}", sessionId);
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Close failed for slow session {}: {}", sessionId, e.getMessage());
+            }
+        }
+
+        synchronized void clear() {
+            tasks.clear();
+            bytes = 0;
+        }
+
+        void drain() {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                final Task task;
+                synchronized (this) {
+                    task = tasks.pollFirst();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                    bytes -= task.bytes();
+                }
+
+                inFlightSince = System.currentTimeMillis();
+                try {
+                    task.runnable().run();
+                } catch (Exception e) {
+                    log.debug("Outbound send failed: session={} cause={}", sessionId, e.getMessage());
+                } finally {
+                    inFlightSince = 0;
+                }
+            }
+            // 한 세션이 스레드를 독점하지 않도록 배치 단위로 다시 제출
+            pool.execute(this::drain);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.forestfull.chat.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 🔹 세션별 페이로드 인코딩 (JSON 기본, CBOR 선택)
+ * CONNECT 프레임에 payload-encoding:cbor 헤더를 보낸 세션에는 브로커가 만든 JSON 페이로드를 CBOR 로 바꿔 바이너리 프레임으로 보냅니다.
+ * 브로커는 같은 페이로드 배열을 모든 구독 세션에 나눠 주므로, 변환 결과를 그 배열 identity 기준으로 잠시 캐시해 메시지당 한 번만 변환합니다.
+ * 캐시는 ConcurrentHashMap.computeIfAbsent 로 채우므로 같은 페이로드끼리만 기다리고, 다른 메시지의 변환은 막지 않습니다.
+ * 항목은 max-entries 로 제한하며, 가득 차면 오래된 항목을 먼저 정리하고 그래도 가득 차면 캐시하지 않고 변환만 합니다.
+ * SockJS 전송은 텍스트 프레임만 쓰므로 원시 WebSocket(/ws/chat/websocket) 세션에서만 CBOR 를 허용합니다.
+ */
+@Slf4j
+@Component
+public class PayloadEncodingInterceptor implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    public enum PayloadEncoding {
+        JSON, CBOR
+    }
+
+    public static final String ENCODING_HEADER = "payload-encoding";
+    public static final MimeType APPLICATION_CBOR = new MimeType("application", "cbor");
+
+    private static final String BINARY_FRAMES_ATTRIBUTE = PayloadEncodingInterceptor.class.getName() + ".BINARY_FRAMES";
+
+    private final boolean cborEnabled;
+    private final long cborCacheTtlMillis;
+    private final int cborCacheMaxEntries;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+
+    // key: sessionId (JSON 세션은 등록하지 않음)
+    private final ConcurrentMap<String, PayloadEncoding> sessionEncodings = new ConcurrentHashMap<>();
+    // key: 브로커 페이로드 배열 (identity), value: CBOR 변환 결과. 한 메시지의 fan-out 동안만 필요하므로 ttl 이 지나면 제거 (최대 cborCacheMaxEntries 개)
+    private final ConcurrentMap<PayloadKey, Transcoded> cborCache = new ConcurrentHashMap<>();
+
+    private final Counter transcodedCounter;
+    private final Counter reusedCounter;
+
+    public PayloadEncodingInterceptor(@Value("${app.chat.outbound.cbor-enabled:true}") boolean cborEnabled,
+                                      @Value("${app.chat.outbound.cbor-cache-ttl-millis:1000}") long cborCacheTtlMillis,
+                                      @Value("${app.chat.outbound.cbor-cache-max-entries:1024}") int cborCacheMaxEntries,
+                                      MeterRegistry meterRegistry) {
+        this.cborEnabled = cborEnabled;
+        this.cborCacheTtlMillis = cborCacheTtlMillis;
+        this.cborCacheMaxEntries = cborCacheMaxEntries;
+        this.transcodedCounter = meterRegistry.counter("chat.outbound.encoding.transcoded", "format", "cbor");
+        this.reusedCounter = meterRegistry.counter("chat.outbound.encoding.reused", "format", "cbor");
+    }
+
+    /**
+     * content-type:application/cbor 로 보낸 SEND 프레임을 읽기 위한 변환기. (content-type 이 정확히 일치할 때만 사용)
+     */
+    public MessageConverter cborMessageConverter() {
+        final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(APPLICATION_CBOR);
+        converter.setObjectMapper(CBORMapper.builder().findAndAddModules().build());
+        converter.setStrictContentTypeMatch(true);
+        return converter;
+    }
+
+    /**
+     * 전송 방식(SockJS / 원시 WebSocket)은 세션 객체로만 알 수 있으므로 연결 시 세션 속성에 남겨 둠
+     */
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                session.getAttributes().put(BINARY_FRAMES_ATTRIBUTE, !(session instanceof SockJsSession));
+                super.afterConnectionEstablished(session);
+            }
+        };
+    }
+
+    /**
+     * clientInboundChannel: CONNECT 의 payload-encoding 헤더로 세션 인코딩 결정
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT) {
+            negotiate(StompHeaderAccessor.wrap(message));
+        }
+        return message;
+    }
+
+    /**
+     * clientOutboundChannel: CBOR 세션으로 나가는 MESSAGE 프레임의 JSON 페이로드를 변환
+     * (inbound 의 SEND 프레임도 MESSAGE 타입이므로 채널별로 인터셉터를 나눔)
+     */
+    public ChannelInterceptor outboundInterceptor() {
+        return new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message, MessageChannel channel) {
+                return SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE
+                        ? encode(message)
+                        : message;
+            }
+        };
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessionEncodings.remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.outbound.cbor-cache-ttl-millis:1000}")
+    void evictTranscoded() {
+        final long threshold = System.currentTimeMillis() - cborCacheTtlMillis;
+        cborCache.values().removeIf(transcoded -> transcoded.createdAtMillis() < threshold);
+    }
+
+    private void negotiate(StompHeaderAccessor connect) {
+        if (!cborEnabled || !"cbor".equalsIgnoreCase(connect.getFirstNativeHeader(ENCODING_HEADER))) return;
+
+        final Map<String, Object> attributes = connect.getSessionAttributes();
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_FRAMES_ATTRIBUTE))) {
+            log.debug("CBOR requested over SockJS, keeping JSON: session={}", connect.getSessionId());
+            return;
+        }
+        sessionEncodings.put(connect.getSessionId(), PayloadEncoding.CBOR);
+    }
+
+    private Message<?> encode(Message<?> message) {
+        if (sessionEncodings.isEmpty() || !(message.getPayload() instanceof byte[] payload) || payload.length == 0) return message;
+
+        final String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null || sessionEncodings.get(sessionId) != PayloadEncoding.CBOR) return message;
+
+        final MimeType contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE, MimeType.class);
+        if (contentType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType)) return message;
+
+        final byte[] cbor;
+        try {
+            cbor = cborOf(payload);
+        } catch (IOException e) {
+            log.warn("CBOR transcoding failed, sending JSON: session={} cause={}", sessionId, e.getMessage());
+            return message;
+        }
+
+        // octet-stream 이어야 STOMP 핸들러가 바이너리 프레임으로 보냄. 실제 형식은 payload-encoding 헤더로 알림
+        final MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        if (accessor instanceof SimpMessageHeaderAccessor simpAccessor) {
+            simpAccessor.setNativeHeader(ENCODING_HEADER, "cbor");
+        }
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    private byte[] cborOf(byte[] json) throws IOException {
+        final PayloadKey key = new PayloadKey(json);
+        final Transcoded cached = cborCache.get(key);
+        if (cached != null) {
+            reusedCounter.increment();
+            return cached.cbor();
+        }
+
+        if (cborCache.size() >= cborCacheMaxEntries) evictTranscoded();
+        if (cborCache.size() >= cborCacheMaxEntries) {
+            // 가득 찬 동안에는 캐시하지 않음 (세션마다 변환하더라도 메모리는 늘지 않음)
+            transcodedCounter.increment();
+            try {
+                return transcode(json);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+
+        final boolean[] computed = {false};
+        final Transcoded transcoded;
+        try {
+            transcoded = cborCache.computeIfAbsent(key, k -> {
+                computed[0] = true;
+                return new Transcoded(transcode(json), System.currentTimeMillis());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        (computed[0] ? transcodedCounter : reusedCounter).increment();
+        return transcoded.cbor();
+    }
+
+    // 객체로 바인딩하지 않고 토큰 단위로 옮겨 씀
+    private byte[] transcode(byte[] json) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 배열 identity 키 (record 의 배열 컴포넌트는 equals/hashCode 가 참조 기준)
+     */
+    private record PayloadKey(byte[] payload) {
+    }
+
+    private record Transcoded(byte[] cbor, long createdAtMillis) {
+    }
+}
@@ -0,0 +1,109 @@
+package com.forestfull.chat.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 방 단위 순서 보장 브로커 실행기 (app.chat.broker.mode=sharded)
+ * brokerChannel 로 들어온 메시지를 목적지의 roomId 해시로 N 개 단일 스레드 lane 중 하나에 배정합니다.
+ * 같은 방은 항상 같은 lane 에서 순서대로 처리되고, 서로 다른 방은 여러 코어에서 병렬로 처리됩니다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.chat.broker.mode", havingValue = "sharded")
+public class RoomLaneExecutor implements Executor, DisposableBean {
+
+    private static final String ROOM_PREFIX = "/topic/rooms/";
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Timer[] dispatchTimers;
+
+    public RoomLaneExecutor(@Value("${app.chat.broker.lanes:0}") int laneCount,
+                            @Value("${app.chat.broker.lane-queue-capacity:10000}") int queueCapacity,
+                            MeterRegistry meterRegistry) {
+        final int size = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[size];
+        this.dispatchTimers = new Timer[size];
+
+        for (int i = 0; i < size; i++) {
+            final String name = "broker-lane-" + i;
+            final ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    r -> {
+                        Thread t = new Thread(r, name);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    // 큐가 가득 차면 발행 스레드를 대기시켜 순서를 유지한 채 backpressure
+                    (r, executor) -> {
+                        try {
+                            if (!executor.isShutdown()) executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for " + name, e);
+                        }
+                    });
+            lanes[i] = lane;
+
+            final String laneTag = String.valueOf(i);
+            Gauge.builder("chat.broker.lane.queue.depth", lane, e -> e.getQueue().size())
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+            dispatchTimers[i] = Timer.builder("chat.broker.lane.dispatch")
+                    .description("lane 적재부터 구독자 전달까지의 시간")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+        }
+        log.info("Sharded broker enabled with {} lanes", size);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        final int index = laneOf(task);
+        final long enqueued = System.nanoTime();
+        lanes[index].execute(() -> {
+            try {
+                task.run();
+            } finally {
+                dispatchTimers[index].record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor lane : lanes) lane.shutdown();
+    }
+
+    private int laneOf(Runnable task) {
+        if (!(task instanceof MessageHandlingRunnable runnable)) return 0;
+
+        final String destination = SimpMessageHeaderAccessor.getDestination(runnable.getMessage().getHeaders());
+        return Math.floorMod(shardKey(destination).hashCode(), lanes.length);
+    }
+
+    /**
+     * /topic/rooms/{roomId}[/...] 는 roomId 로, 나머지 목적지는 목적지 문자열 그대로 샤딩합니다.
+     */
+    static String shardKey(String destination) {
+        if (destination == null) return "";
+        if (!destination.startsWith(ROOM_PREFIX)) return destination;
+
+        final int end = destination.indexOf('/', ROOM_PREFIX.length());
+        return end < 0 ? destination.substring(ROOM_PREFIX.length()) : destination.substring(ROOM_PREFIX.length(), end);
+    }
+}
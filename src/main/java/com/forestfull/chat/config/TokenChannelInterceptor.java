@@ -1,49 +1,135 @@
 package com.forestfull.chat.config;
 
-import com.forestfull.common.token.JwtUtil;
+import com.forestfull.common.token.RefreshTokenMapper;
 import com.forestfull.domain.User;
-import lombok.RequiredArgsConstructor;
-import org.springframework.boot.configurationprocessor.json.JSONObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
 
-import java.util.Base64;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * 🔹 STOMP 세션 인증
+ * CONNECT 에서 한 번만 핸드셰이크 때 검증해 둔 principal 을 세션에 붙이고, 이후 프레임은 그대로 통과시킵니다.
+ * (STOMP 핸들러가 CONNECT 의 user 를 세션 단위로 기억해 이후 모든 프레임에 붙임)
+ * 토큰 만료는 주기적으로 메모리에서, 로그아웃 등으로 refresh token 이 모두 사라진 사용자는 주기적으로 DB 에서 확인해 세션을 닫습니다.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class TokenChannelInterceptor implements ChannelInterceptor {
 
-    private final JwtUtil jwtUtil;
+    private static final CloseStatus EXPIRED = CloseStatus.POLICY_VIOLATION.withReason("token expired");
+    private static final CloseStatus REVOKED = CloseStatus.POLICY_VIOLATION.withReason("token revoked");
+    private static final int REVOCATION_BATCH = 1000;
+
+    private record SessionAuth(Long memberId, long expiresAtMillis) {
+    }
+
+    private final RefreshTokenMapper refreshTokenMapper;
+    private final OutboundSessionExecutor outboundSessionExecutor;
+    private final boolean revocationCheckEnabled;
+    private final Counter expiredCounter;
+    private final Counter revokedCounter;
+
+    // key: sessionId
+    private final ConcurrentMap<String, SessionAuth> sessions = new ConcurrentHashMap<>();
+
+    public TokenChannelInterceptor(RefreshTokenMapper refreshTokenMapper,
+                                   OutboundSessionExecutor outboundSessionExecutor,
+                                   @Value("${app.chat.auth.revocation-check-enabled:true}") boolean revocationCheckEnabled,
+                                   MeterRegistry meterRegistry) {
+        this.refreshTokenMapper = refreshTokenMapper;
+        this.outboundSessionExecutor = outboundSessionExecutor;
+        this.revocationCheckEnabled = revocationCheckEnabled;
+        this.expiredCounter = meterRegistry.counter("chat.session.auth.closed", "reason", "expired");
+        this.revokedCounter = meterRegistry.counter("chat.session.auth.closed", "reason", "revoked");
+        Gauge.builder("chat.session.auth.sessions", sessions, Map::size).register(meterRegistry);
+    }
 
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
-        Object tokenPayloadObject = accessor.getSessionAttributes().get(JwtUtil.TOKEN_TYPE.JWT_PAYLOAD.name());
-
-        if (tokenPayloadObject != null) {
-            String payload = tokenPayloadObject.toString();
-            try {
-                jwtUtil.verifyToken(payload);
-                String json = new String(Base64.getDecoder().decode(payload));
-                JSONObject obj = new JSONObject(json);
-
-                String username = obj.getString("username");
-                String displayName = obj.optString("displayName", username);
-                String profileImage = obj.optString("profileImage", null);
-
-                accessor.setUser(User.builder()
-                        .name(username)
-                        .displayName(displayName)
-                        .profileImage(profileImage)
-                        .build());
-
-            } catch (Exception ignored) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.CONNECT) return message;
+
+        // STOMP 핸들러가 같은 accessor 에서 user 를 읽어 가므로 wrap(복사) 이 아니라 원본 accessor 를 수정
+        final StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        final Map<String, Object> attributes = accessor == null ? null : accessor.getSessionAttributes();
+        if (attributes == null) return message;
+
+        if (attributes.get(JwtHandshakeInterceptor.AUTHENTICATION_ATTRIBUTE) instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof User user) {
+            accessor.setUser(authentication);
+            final Object expiresAt = attributes.get(JwtHandshakeInterceptor.EXPIRES_AT_ATTRIBUTE);
+            sessions.put(accessor.getSessionId(), new SessionAuth(user.getId(), expiresAt instanceof Long millis ? millis : Long.MAX_VALUE));
+        }
+        return message;
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.auth.expiry-check-millis:5000}")
+    void closeExpiredSessions() {
+        final long now = System.currentTimeMillis();
+        sessions.forEach((sessionId, auth) -> {
+            if (auth.expiresAtMillis() > now) return;
+            sessions.remove(sessionId);
+            expiredCounter.increment();
+            outboundSessionExecutor.closeSession(sessionId, EXPIRED);
+            log.info("🔹 STOMP session closed, token expired: session={} member={}", sessionId, auth.memberId());
+        });
+    }
+
+    /**
+     * 유효한 refresh token 이 하나도 없는 사용자(로그아웃, 토큰 삭제)의 세션을 닫습니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.auth.revocation-check-millis:60000}")
+    void closeRevokedSessions() {
+        if (!revocationCheckEnabled || sessions.isEmpty()) return;
+
+        final Set<Long> checked = new HashSet<>();
+        sessions.values().forEach(auth -> checked.add(auth.memberId()));
+        final List<Long> memberIds = new ArrayList<>(checked);
+        final Set<Long> valid = new HashSet<>();
+        try {
+            for (int from = 0; from < memberIds.size(); from += REVOCATION_BATCH) {
+                valid.addAll(refreshTokenMapper.findMembersWithValidToken(memberIds.subList(from, Math.min(from + REVOCATION_BATCH, memberIds.size()))));
             }
+        } catch (Exception e) {
+            // DB 장애 시 세션을 닫지 않고 다음 주기에 다시 확인
+            log.warn("💥 Revocation check failed: {}", e.getMessage());
+            return;
         }
 
-        return message;
+        sessions.forEach((sessionId, auth) -> {
+            // 조회 이후 연결된 세션은 다음 주기에 확인
+            if (!checked.contains(auth.memberId()) || valid.contains(auth.memberId())) return;
+            sessions.remove(sessionId);
+            revokedCounter.increment();
+            outboundSessionExecutor.closeSession(sessionId, REVOKED);
+            log.info("🔹 STOMP session closed, token revoked: session={} member={}", sessionId, auth.memberId());
+        });
     }
-}
\ No newline at end of file
+}
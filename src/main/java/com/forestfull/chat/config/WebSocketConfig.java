@@ -1,12 +1,17 @@
 package com.forestfull.chat.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -15,10 +20,36 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final TokenChannelInterceptor tokenChannelInterceptor;
     private final JwtHandshakeInterceptor jwtHandshakeInterceptor;
+    private final ObjectProvider<RoomLaneExecutor> roomLaneExecutor;
+    private final OutboundSessionExecutor outboundSessionExecutor;
+    private final PayloadEncodingInterceptor payloadEncodingInterceptor;
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(tokenChannelInterceptor);
+        registration.interceptors(tokenChannelInterceptor, payloadEncodingInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // 세션별 송신 큐 + 느린 소비자 정책 (세션 내 전송 순서도 여기서 보장)
+        // CBOR 세션 변환은 큐에 넣기 전에 (크기 계산이 실제 전송 바이트 기준이 되도록)
+        registration.executor(outboundSessionExecutor)
+                .interceptors(payloadEncodingInterceptor.outboundInterceptor());
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // content-type:application/cbor 로 보낸 프레임만 CBOR 로 읽고, 나머지는 기본 JSON 변환기 사용
+        messageConverters.add(payloadEncodingInterceptor.cborMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit((int) outboundSessionExecutor.getSendTimeLimitMillis())
+                .setSendBufferSizeLimit((int) outboundSessionExecutor.getBufferSizeLimit())
+                .addDecoratorFactory(outboundSessionExecutor)
+                .addDecoratorFactory(payloadEncodingInterceptor);
     }
 
     @Override
@@ -31,7 +62,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic");
+        registry.enableSimpleBroker("/topic", "/queue");
+        // app.chat.broker.mode=sharded: 방별 lane 에서 브로커 처리 (기본은 발행 스레드에서 동기 처리)
+        roomLaneExecutor.ifAvailable(executor -> registry.configureBrokerChannel().executor(executor));
         registry.setApplicationDestinationPrefixes("/app");
+        registry.setUserDestinationPrefix("/user");
     }
 }
@@ -0,0 +1,191 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.cluster.ClusterBus;
+import com.forestfull.chat.cluster.ClusterEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔹 방 메시지 브로드캐스트 창구
+ * /topic/rooms/{roomId} 로 나가는 모든 메시지에 방별 단조 증가 seq 를 붙이고,
+ * 최근 window 개를 메모리에 남겨 재접속한 클라이언트가 놓친 메시지만 받아갈 수 있게 합니다.
+ * seq 는 메모리에만 있으므로 방 로그가 새로 만들어질 때마다 epoch 가 바뀌고, epoch 가 다르면 클라이언트는 전체를 다시 로드합니다.
+ * 메시지는 seq 를 붙인 직후 한 번만 직렬화해서 브로커 전송과 재접속 재전송에 같은 바이트를 씁니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChatMessageBroadcaster {
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/rooms/";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ClusterBus clusterBus;
+    private final MessageWireCodec messageWireCodec;
+
+    @Value("${app.chat.resume.window:512}")
+    private int window;
+
+    @Value("${app.chat.resume.idle-evict-millis:1800000}")
+    private long idleEvictMillis;
+
+    // key: roomId
+    private final ConcurrentMap<Long, RoomLog> logs = new ConcurrentHashMap<>();
+    private final AtomicLong lastEpoch = new AtomicLong();
+
+    /**
+     * seq 를 부여하고 방 토픽으로 전송합니다. 같은 방 안에서는 seq 순서와 전송 순서가 같습니다.
+     */
+    public void broadcast(ChatDTO.Message message) {
+        deliver(message);
+        // 다른 노드에는 한 번만 발행 (방 모니터 밖에서 호출해 노드 간 교착을 피함)
+        clusterBus.publish(new ClusterEvent.RoomMessage(message));
+    }
+
+    /**
+     * 이 노드의 구독자에게만 전달합니다. 다른 노드에서 온 메시지도 이 노드 기준의 seq 를 새로 부여받습니다.
+     */
+    public void deliver(ChatDTO.Message message) {
+        logs.computeIfAbsent(message.getRoomId(), RoomLog::new).publish(message);
+    }
+
+    /**
+     * afterSeq 이후 메시지를 반환합니다. epoch 가 다르거나 window 를 벗어나 메모리로 채울 수 없으면 reset=true 입니다.
+     */
+    public ChatDTO.ResumeResult resume(Long roomId, Long epoch, long afterSeq) {
+        // 조회만으로 방 로그를 만들지 않음 (없는 방 id 로도 호출될 수 있음)
+        final RoomLog roomLog = logs.get(roomId);
+        if (roomLog == null) return empty(true);
+        return roomLog.since(epoch, afterSeq);
+    }
+
+    /**
+     * 현재 epoch 와 마지막 seq (messages 는 비어 있음)
+     */
+    public ChatDTO.ResumeResult position(Long roomId) {
+        final RoomLog roomLog = logs.get(roomId);
+        if (roomLog == null) return empty(false);
+        return roomLog.position();
+    }
+
+    /**
+     * 구독 스냅샷용: 현재 epoch/마지막 seq 와, 그 seq 까지 전송된 저장 메시지(id 있음) 중 최근 limit 개(최신순)를 같은 방 모니터 안에서 읽습니다.
+     * 캐시가 아니라 전송한 링에서 직접 읽으므로 저장 완료 순서나 캐시 반영 여부와 관계없이 lastSeq 이하 메시지가 빠지지 않습니다.
+     */
+    public RecentMessages recent(Long roomId, int limit) {
+        final RoomLog roomLog = logs.get(roomId);
+        if (roomLog == null) return new RecentMessages(null, 0, List.of());
+        return roomLog.recent(limit);
+    }
+
+    public record RecentMessages(Long epoch, long lastSeq, List<EncodedMessage> messages) {
+    }
+
+    public void evict(Long roomId) {
+        logs.remove(roomId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.resume.sweep-millis:60000}")
+    void evictIdleRooms() {
+        final long threshold = System.currentTimeMillis() - idleEvictMillis;
+        logs.values().removeIf(roomLog -> roomLog.lastPublished < threshold);
+    }
+
+    private final class RoomLog {
+        private final Long roomId;
+        private final long epoch = nextEpoch();
+        private final EncodedMessage[] ring = new EncodedMessage[window];
+        private long seq;
+        private volatile long lastPublished = System.currentTimeMillis();
+
+        RoomLog(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        synchronized void publish(ChatDTO.Message message) {
+            message.setEpoch(epoch);
+            message.setSeq(++seq);
+            final EncodedMessage encoded = messageWireCodec.refresh(message);
+            ring[(int) (seq % ring.length)] = encoded;
+            lastPublished = System.currentTimeMillis();
+
+            // 전송까지 방 모니터 안에서 처리해야 seq 순서대로 브로커에 들어감 (이미 직렬화한 바이트를 그대로 전송)
+            messagingTemplate.send(ROOM_TOPIC_PREFIX + roomId, MessageBuilder.createMessage(encoded.getJson(), jsonHeaders()));
+        }
+
+        synchronized ChatDTO.ResumeResult position() {
+            return ChatDTO.ResumeResult.builder()
+                    .epoch(epoch)
+                    .lastSeq(seq)
+                    .reset(false)
+                    .messages(List.of())
+                    .build();
+        }
+
+        synchronized RecentMessages recent(int limit) {
+            final long oldest = Math.max(1, seq - ring.length + 1);
+            final List<EncodedMessage> messages = new ArrayList<>(limit);
+            for (long s = seq; s >= oldest && messages.size() < limit; s--) {
+                final EncodedMessage encoded = ring[(int) (s % ring.length)];
+                // 입장/퇴장 메시지(id 없음)는 기록 조회와 같게 제외
+                if (encoded.getId() != null) messages.add(encoded);
+            }
+            return new RecentMessages(epoch, seq, messages);
+        }
+
+        synchronized ChatDTO.ResumeResult since(Long clientEpoch, long afterSeq) {
+            final long oldest = Math.max(1, seq - ring.length + 1);
+            final boolean reset = !Objects.equals(clientEpoch, epoch) || afterSeq > seq || afterSeq + 1 < oldest;
+
+            final List<EncodedMessage> missed = new ArrayList<>();
+            if (!reset) {
+                for (long s = afterSeq + 1; s <= seq; s++) missed.add(ring[(int) (s % ring.length)]);
+            }
+
+            return ChatDTO.ResumeResult.builder()
+                    .epoch(epoch)
+                    .lastSeq(seq)
+                    .reset(reset)
+                    .messages(missed)
+                    .build();
+        }
+    }
+
+    /**
+     * 같은 밀리초에 로그가 다시 만들어져도 겹치지 않고, 재시작 후에도 이전 값과 겹치지 않도록 현재 시각 이상으로 증가시킵니다.
+     * (JS number 로 정확히 표현되는 범위)
+     */
+    private long nextEpoch() {
+        return lastEpoch.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+
+    private static ChatDTO.ResumeResult empty(boolean reset) {
+        return ChatDTO.ResumeResult.builder()
+                .lastSeq(0)
+                .reset(reset)
+                .messages(List.of())
+                .build();
+    }
+
+    private static MessageHeaders jsonHeaders() {
+        final SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return headers.getMessageHeaders();
+    }
+}
@@ -11,8 +11,38 @@ public interface ChatMessageMapper {
 
     int saveMessage(ChatDTO.Message message);
 
+    int saveMessages(@Param("messages") List<ChatDTO.Message> messages);
+
+    int saveMessagesWithIds(@Param("messages") List<ChatDTO.Message> messages);
+
     List<ChatDTO.Message> findRecentMessages(
             @Param("roomId") Long roomId,
             @Param("limit") int limit
     );
+
+    List<ChatDTO.Message> findMessagesBefore(
+            @Param("roomId") Long roomId,
+            @Param("beforeId") Long beforeId,
+            @Param("limit") int limit
+    );
+
+    List<Long> findRecentMessageIds(
+            @Param("roomId") Long roomId,
+            @Param("limit") int limit
+    );
+
+    List<ChatDTO.Message> findMessagesByIds(@Param("ids") List<Long> ids);
+
+    List<ChatDTO.Message> findMessagesAfter(
+            @Param("afterId") long afterId,
+            @Param("limit") int limit
+    );
+
+    List<ChatDTO.Message> findArchivableMessages(
+            @Param("minAgeDays") long minAgeDays,
+            @Param("afterId") long afterId,
+            @Param("limit") int limit
+    );
+
+    int deleteMessagesByIds(@Param("ids") List<Long> ids);
 }
@@ -1,28 +1,179 @@
 package com.forestfull.chat.message;
 
 import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.archive.MessageArchive;
+import com.forestfull.chat.search.MessageSearchIndex;
+import com.forestfull.common.TransactionHooks;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ChatMessageService {
 
+    private static final String CURSOR_PREFIX = "m1:";
+
     private final ChatMessageMapper chatMessageMapper;
+    private final ChatMessageWriteBehindQueue writeBehindQueue;
+    private final ChatMessageWal messageWal;
+    private final RecentMessageCache recentMessageCache;
+    private final MessageSearchIndex messageSearchIndex;
+    private final MessageArchive messageArchive;
+    private final MessageWireCodec messageWireCodec;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public ChatDTO.Message saveMessage(ChatDTO.Message message) {
         int res = chatMessageMapper.saveMessage(message);
         log.info("💾 Message saved: {} -> result={}", message.getMessage(), res);
+        // 롤백된 메시지가 캐시/색인에 남지 않도록 커밋 후에 반영
+        TransactionHooks.afterCommit(() -> {
+            recentMessageCache.append(message);
+            messageSearchIndex.submit(message);
+        });
         return message;
     }
 
-    public List<ChatDTO.Message> getRecentMessages(Long roomId, int limit) {
-        return chatMessageMapper.findRecentMessages(roomId, limit);
+    /**
+     * WAL 모드면 로컬 WAL fsync 시점에, write-behind 모드면 배치 저장 완료 시점에, 아니면 즉시 저장 후 완료되는 future 를 반환합니다.
+     */
+    public CompletableFuture<ChatDTO.Message> saveMessageAsync(ChatDTO.Message message) {
+        final CompletableFuture<ChatDTO.Message> accepted;
+        if (messageWal.isEnabled()) accepted = messageWal.append(message);
+        else if (writeBehindQueue.isEnabled()) accepted = writeBehindQueue.submit(message);
+        // 같은 빈 안의 호출은 @Transactional 프록시를 거치지 않으므로 트랜잭션을 직접 엶
+        else return CompletableFuture.completedFuture(transactionTemplate.execute(status -> saveMessage(message)));
+
+        return accepted.thenApply(saved -> {
+            recentMessageCache.append(saved);
+            messageSearchIndex.submit(saved);
+            return saved;
+        });
+    }
+
+    /**
+     * 재시작 전에 WAL 에만 확정된 메시지는 DB 반영 시점이 최근 메시지 캐시/검색 색인의 DB 적재보다 늦을 수 있으므로,
+     * 요청을 받기 전에 캐시에 id 순서로 채우고 직접 색인합니다.
+     */
+    @PostConstruct
+    void restoreReplayedMessages() {
+        final List<ChatDTO.Message> replayed = messageWal.getReplayed();
+        recentMessageCache.seed(replayed);
+        replayed.forEach(messageSearchIndex::submit);
+    }
+
+    /**
+     * 최근 메시지 조회: 링 버퍼 용량 이내면 메모리에서, 그 이상이면 DB 에서 조회하고 모자라면 보관소에서 채웁니다.
+     * 링 버퍼의 메시지는 직렬화 결과를 재사용합니다.
+     */
+    public List<EncodedMessage> getRecentMessages(Long roomId, int limit) {
+        final List<ChatDTO.Message> rows = limit <= recentMessageCache.getCapacityPerRoom()
+                ? recentMessageCache.getRecent(roomId, limit)
+                : chatMessageMapper.findRecentMessages(roomId, limit);
+        return messageWireCodec.encodeAll(fillFromArchive(roomId, null, rows, limit));
+    }
+
+    /**
+     * keyset 페이지 조회: beforeId 보다 작은 id 의 메시지를 최신순으로 limit 개 반환합니다. (beforeId 가 null 이면 최신부터)
+     */
+    public ChatDTO.MessagePage getMessagesBefore(Long roomId, Long beforeId, int limit) {
+        // limit + 1 개를 조회해서 다음 페이지 존재 여부를 판단
+        final List<ChatDTO.Message> hot = beforeId == null && limit < recentMessageCache.getCapacityPerRoom()
+                ? recentMessageCache.getRecent(roomId, limit + 1)
+                : chatMessageMapper.findMessagesBefore(roomId, beforeId, limit + 1);
+        final List<ChatDTO.Message> rows = fillFromArchive(roomId, beforeId, hot, limit + 1);
+
+        final boolean hasMore = rows.size() > limit;
+        final List<ChatDTO.Message> page = hasMore ? rows.subList(0, limit) : rows;
+        final Long lastId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+
+        return ChatDTO.MessagePage.builder()
+                .messages(messageWireCodec.encodeAll(page))
+                .hasMore(hasMore)
+                .nextCursor(hasMore && lastId != null ? encodeCursor(lastId) : null)
+                .build();
+    }
+
+    /**
+     * 전문 검색: roomId 가 null 이면 전체 방에서, beforeId 보다 작은 id 의 결과를 최신순으로 limit 개 반환합니다.
+     */
+    public ChatDTO.MessagePage searchMessages(Long roomId, String query, Long beforeId, int limit) {
+        final MessageSearchIndex.Hits hits = messageSearchIndex.search(roomId, query, beforeId, limit);
+        final List<ChatDTO.Message> page = hits.messageIds().isEmpty()
+                ? List.of()
+                : findMessagesByIds(hits);
+        final Long lastId = hits.messageIds().isEmpty() ? null : hits.messageIds().get(hits.messageIds().size() - 1);
+
+        return ChatDTO.MessagePage.builder()
+                .messages(messageWireCodec.encodeAll(page))
+                .hasMore(hits.hasMore())
+                .nextCursor(hits.hasMore() ? encodeCursor(lastId) : null)
+                .build();
+    }
+
+    /**
+     * DB 에 없는 검색 결과는 보관소로 옮겨진 메시지이므로 보관소에서 찾아 id 역순으로 합칩니다.
+     */
+    private List<ChatDTO.Message> findMessagesByIds(MessageSearchIndex.Hits hits) {
+        final List<ChatDTO.Message> found = chatMessageMapper.findMessagesByIds(hits.messageIds());
+        if (found.size() >= hits.messageIds().size()) return found;
+
+        final Set<Long> hotIds = found.stream().map(ChatDTO.Message::getId).collect(Collectors.toSet());
+        final Map<Long, Long> coldIds = new HashMap<>();
+        hits.roomIds().forEach((id, roomId) -> {
+            if (!hotIds.contains(id)) coldIds.put(id, roomId);
+        });
+
+        final List<ChatDTO.Message> merged = new ArrayList<>(found);
+        merged.addAll(messageArchive.findByIds(coldIds));
+        merged.sort(Comparator.comparing(ChatDTO.Message::getId).reversed());
+        return merged;
+    }
+
+    /**
+     * DB(또는 링 버퍼) 결과가 limit 보다 적으면 더 오래된 메시지를 보관소에서 이어 붙입니다.
+     * 보관 도중에는 같은 메시지가 양쪽에 있을 수 있으므로 마지막 id 보다 작은 것만 가져옵니다.
+     */
+    private List<ChatDTO.Message> fillFromArchive(Long roomId, Long beforeId, List<ChatDTO.Message> rows, int limit) {
+        if (rows.size() >= limit) return rows;
+
+        final Long oldestId = rows.isEmpty() ? beforeId : rows.get(rows.size() - 1).getId();
+        final List<ChatDTO.Message> cold = messageArchive.findBefore(roomId, oldestId, limit - rows.size());
+        if (cold.isEmpty()) return rows;
+
+        final List<ChatDTO.Message> merged = new ArrayList<>(rows.size() + cold.size());
+        merged.addAll(rows);
+        merged.addAll(cold);
+        return merged;
+    }
+
+    public static String encodeCursor(Long messageId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + messageId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException 잘못된 cursor
+     */
+    public static Long decodeCursor(String cursor) {
+        final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (!decoded.startsWith(CURSOR_PREFIX)) throw new IllegalArgumentException("Invalid cursor");
+        return Long.valueOf(decoded.substring(CURSOR_PREFIX.length()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,525 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * 🔹 채팅 메시지 로컬 WAL (write-ahead log)
+ * 전송 스레드는 큐에 적재만 하고, writer 스레드가 모인 메시지를 한 번에 쓰고 fsync 한 번으로 확정(group commit)한 뒤 future 를 완료합니다.
+ * 브로드캐스트는 이 시점에 이루어지고, DB 반영은 replicator 스레드가 배치 INSERT(이미 있는 같은 행은 ON DUPLICATE KEY 로 통과, 내용이 다르면 제약 위반)로 따로 따라갑니다.
+ * 배치가 제약 위반으로 거부되면 한 건씩 다시 보내 원인 레코드만 골라 기록하고 건너뜁니다. (나머지 오류는 backoff 후 재시도)
+ * 재시작 시 checkpoint 이후 레코드를 다시 읽어 DB 반영을 이어가므로 DB 장애 중에도 확정된 메시지는 잃지 않습니다.
+ * 레코드 구성: length(int) | crc32c(int) | payload(id, roomId, memberId, createdAt, message, createdBy)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatMessageWal {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private record Pending(ChatDTO.Message message, CompletableFuture<ChatDTO.Message> future) {
+    }
+
+    private record Entry(long lsn, ChatDTO.Message message, long appendedAtMillis) {
+    }
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.wal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.wal.dir:./data/wal}")
+    private String dir;
+
+    @Value("${app.chat.wal.worker-id:0}")
+    private int workerId;
+
+    @Value("${app.chat.wal.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.chat.wal.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${app.chat.wal.group-commit-millis:2}")
+    private long groupCommitMillis;
+
+    @Value("${app.chat.wal.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${app.chat.wal.replicate-batch:500}")
+    private int replicateBatch;
+
+    @Value("${app.chat.wal.max-lag:1000000}")
+    private long maxLag;
+
+    @Value("${app.chat.wal.retry-max-millis:5000}")
+    private long retryMaxMillis;
+
+    private Path directory;
+    private MessageIdGenerator idGenerator;
+    private BlockingQueue<Pending> queue;
+    private final BlockingQueue<Entry> unreplicated = new LinkedBlockingQueue<>();
+    // DB 반영 전 메시지의 방별 색인 (key: roomId → id). replicator 가 꺼내 간 batch 도 반영이 끝날 때까지 남음
+    private final ConcurrentMap<Long, NavigableMap<Long, ChatDTO.Message>> unreplicatedByRoom = new ConcurrentHashMap<>();
+
+    // key: 세그먼트의 첫 lsn
+    private final NavigableMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private FileChannel active;
+    private FileChannel checkpoint;
+
+    private volatile long appendedLsn;
+    private volatile long replicatedLsn;
+    private volatile long oldestUnreplicatedAt;
+    private List<ChatDTO.Message> replayed = List.of();
+
+    private Thread writer;
+    private Thread replicator;
+    private volatile boolean running;
+
+    private Timer fsyncTimer;
+    private DistributionSummary groupSize;
+    private Counter replicatedCounter;
+    private Counter replicationFailures;
+    private Counter skippedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+        idGenerator = new MessageIdGenerator(workerId);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final ByteBuffer stored = ByteBuffer.allocate(8);
+        if (checkpoint.read(stored, 0) == 8) replicatedLsn = stored.getLong(0);
+
+        replay();
+        openSegment(appendedLsn + 1);
+
+        fsyncTimer = Timer.builder("chat.message.wal.fsync")
+                .description("group commit 한 번의 write + fsync 소요 시간")
+                .register(meterRegistry);
+        groupSize = DistributionSummary.builder("chat.message.wal.group-size")
+                .description("fsync 한 번에 확정된 메시지 수")
+                .register(meterRegistry);
+        replicatedCounter = meterRegistry.counter("chat.message.wal.replicated");
+        replicationFailures = meterRegistry.counter("chat.message.wal.replication.failures");
+        skippedCounter = meterRegistry.counter("chat.message.wal.replication.skipped");
+        rejectedCounter = meterRegistry.counter("chat.message.wal.rejected");
+        Gauge.builder("chat.message.wal.lag", this, wal -> wal.appendedLsn - wal.replicatedLsn)
+                .description("WAL 에 확정됐지만 아직 DB 에 반영되지 않은 메시지 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.message.wal.lag.seconds", this, ChatMessageWal::lagSeconds)
+                .description("DB 에 반영되지 않은 가장 오래된 메시지의 대기 시간")
+                .register(meterRegistry);
+        Gauge.builder("chat.message.wal.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("chat.message.wal.segments", segments, Map::size).register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "chat-message-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        replicator = new Thread(this::replicateLoop, "chat-message-wal-replicator");
+        replicator.setDaemon(true);
+        replicator.start();
+        log.info("Chat message WAL enabled: dir={} worker={} appended={} replicated={} replaying={}",
+                directory, workerId, appendedLsn, replicatedLsn, unreplicated.size());
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException, IOException {
+        if (!enabled) return;
+
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        // DB 가 늦으면 기다리지 않음: 남은 레코드는 다음 기동 때 재생
+        replicator.interrupt();
+        replicator.join(TimeUnit.SECONDS.toMillis(10));
+        active.close();
+        checkpoint.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재시작 시 WAL 에서 다시 읽은 (DB 반영 전) 메시지
+     */
+    public List<ChatDTO.Message> getReplayed() {
+        return replayed;
+    }
+
+    /**
+     * 이 방에서 WAL 에 확정됐지만 아직 DB 에 반영되지 않은 메시지 (id 오름차순)
+     * DB 반영이 끝난 뒤에 빠지므로, 이 목록을 먼저 읽고 DB 를 읽으면 그 사이 반영된 메시지도 둘 중 한쪽에는 있습니다.
+     */
+    public List<ChatDTO.Message> getUnreplicated(Long roomId) {
+        final NavigableMap<Long, ChatDTO.Message> messages = unreplicatedByRoom.get(roomId);
+        return messages == null ? List.of() : List.copyOf(messages.values());
+    }
+
+    /**
+     * id 를 발급하고 WAL 에 적재합니다. 반환된 future 는 fsync 로 확정된 뒤 완료됩니다. (DB 반영은 기다리지 않음)
+     */
+    public CompletableFuture<ChatDTO.Message> append(ChatDTO.Message message) {
+        final Pending pending = new Pending(message, new CompletableFuture<>());
+        // DB 가 max-lag 이상 밀려 있거나 writer 가 따라오지 못하면 받지 않음 (메모리의 반영 대기열이 무한히 자라지 않도록)
+        if (appendedLsn - replicatedLsn < maxLag && queue.offer(pending)) return pending.future();
+
+        rejectedCounter.increment();
+        pending.future().completeExceptionally(new RejectedExecutionException("message WAL is full"));
+        return pending.future();
+    }
+
+    private void writeLoop() {
+        final List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // 첫 메시지 기준으로 group-commit 시간까지만 더 모음
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupCommitMillis);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    if (batch.size() >= maxBatch) break;
+
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+
+                    final Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException ignored) {
+                // stop() 에서 깨운 경우: 루프 조건에서 남은 큐를 마저 비움
+            } finally {
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        final long started = System.nanoTime();
+        long position = -1;
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(batch.size() * 256);
+            for (Pending pending : batch) {
+                pending.message().setId(idGenerator.next());
+                writeRecord(bytes, pending.message());
+            }
+
+            if (active.size() >= segmentBytes) openSegment(appendedLsn + 1);
+            position = active.size();
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) active.write(buffer);
+            active.force(false);
+        } catch (IOException e) {
+            log.error("💥 WAL append failed: size={} cause={}", batch.size(), e.getMessage());
+            discardTail(position);
+            batch.forEach(p -> p.future().completeExceptionally(e));
+            return;
+        } finally {
+            fsyncTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+
+        final long now = System.currentTimeMillis();
+        for (Pending pending : batch) {
+            unreplicated.add(new Entry(appendedLsn + 1, pending.message(), now));
+            indexUnreplicated(pending.message());
+            appendedLsn++;
+        }
+        groupSize.record(batch.size());
+        batch.forEach(p -> p.future().complete(p.message()));
+    }
+
+    /**
+     * 쓰다가 실패한 뒤의 반쯤 쓰인 레코드를 잘라냅니다. 잘라내지도 못하면 새 세그먼트로 넘어가 뒤 레코드가 가려지지 않게 합니다.
+     */
+    private void discardTail(long position) {
+        if (position < 0) return;
+        try {
+            active.truncate(position);
+        } catch (IOException e) {
+            try {
+                openSegment(appendedLsn + 1);
+            } catch (IOException rollFailure) {
+                log.error("💥 WAL segment roll failed: {}", rollFailure.getMessage());
+            }
+        }
+    }
+
+    private void replicateLoop() {
+        final List<Entry> inflight = new ArrayList<>(replicateBatch);
+        long backoffMillis = 0;
+        // 제약 위반으로 거부된 batch 를 한 건씩 다시 보내는 중
+        boolean isolating = false;
+        while (running || !unreplicated.isEmpty() || !inflight.isEmpty()) {
+            try {
+                if (backoffMillis > 0) Thread.sleep(backoffMillis);
+                if (inflight.isEmpty()) {
+                    final Entry first = unreplicated.poll(200, TimeUnit.MILLISECONDS);
+                    if (first == null) continue;
+                    inflight.add(first);
+                }
+                // 한 건씩 보내는 중에는 새 레코드를 붙이지 않고 지금 batch 만 마저 처리
+                if (!isolating) unreplicated.drainTo(inflight, replicateBatch - inflight.size());
+                oldestUnreplicatedAt = inflight.get(0).appendedAtMillis();
+            } catch (InterruptedException e) {
+                if (!running) return;
+                continue;
+            }
+
+            final List<Entry> attempt = isolating ? inflight.subList(0, 1) : inflight;
+            boolean skipped = false;
+            try {
+                chatMessageMapper.saveMessagesWithIds(attempt.stream().map(Entry::message).toList());
+            } catch (DataIntegrityViolationException e) {
+                replicationFailures.increment();
+                if (attempt.size() > 1) {
+                    log.warn("WAL replication rejected by DB, retrying one by one: size={} cause={}", attempt.size(), e.getMessage());
+                    isolating = true;
+                    continue;
+                }
+                // 한 건만 보내도 거부되면 재시도해도 반영될 수 없으므로 기록하고 건너뜀 (뒤 레코드가 막히지 않도록)
+                final ChatDTO.Message rejected = attempt.get(0).message();
+                log.error("💥 WAL record rejected by DB, skipped: id={} room={} cause={}", rejected.getId(), rejected.getRoomId(), e.getMessage());
+                skippedCounter.increment();
+                skipped = true;
+            } catch (Exception e) {
+                replicationFailures.increment();
+                backoffMillis = Math.min(retryMaxMillis, Math.max(50, backoffMillis * 2));
+                log.warn("WAL replication failed: size={} retryIn={}ms cause={}", attempt.size(), backoffMillis, e.getMessage());
+                continue;
+            }
+
+            backoffMillis = 0;
+            replicatedLsn = attempt.get(attempt.size() - 1).lsn();
+            if (!skipped) replicatedCounter.increment(attempt.size());
+            attempt.forEach(entry -> unindexUnreplicated(entry.message()));
+            attempt.clear();
+            if (inflight.isEmpty()) isolating = false;
+            final Entry next = inflight.isEmpty() ? unreplicated.peek() : inflight.get(0);
+            oldestUnreplicatedAt = next == null ? 0 : next.appendedAtMillis();
+            saveCheckpoint();
+        }
+    }
+
+    private void indexUnreplicated(ChatDTO.Message message) {
+        unreplicatedByRoom.computeIfAbsent(message.getRoomId(), k -> new ConcurrentSkipListMap<>()).put(message.getId(), message);
+    }
+
+    private void unindexUnreplicated(ChatDTO.Message message) {
+        unreplicatedByRoom.computeIfPresent(message.getRoomId(), (roomId, messages) -> {
+            messages.remove(message.getId());
+            return messages.isEmpty() ? null : messages;
+        });
+    }
+
+    /**
+     * checkpoint 는 fsync 하지 않습니다. 잃어버리면 이미 반영된 레코드를 다시 보내고 ON DUPLICATE KEY 로 걸러집니다.
+     */
+    private void saveCheckpoint() {
+        try {
+            checkpoint.write(ByteBuffer.allocate(8).putLong(0, replicatedLsn), 0);
+        } catch (IOException e) {
+            log.warn("WAL checkpoint write failed: {}", e.getMessage());
+            return;
+        }
+
+        // 다음 세그먼트의 시작 lsn 까지 모두 반영된 세그먼트는 삭제 (쓰는 중인 마지막 세그먼트는 유지)
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            final Long nextFirstLsn = segments.higherKey(segment.getKey());
+            if (nextFirstLsn == null || nextFirstLsn - 1 > replicatedLsn) break;
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+            } catch (IOException e) {
+                log.warn("WAL segment delete failed: {} cause={}", segment.getValue(), e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * 세그먼트를 순서대로 읽어 checkpoint 이후 레코드를 DB 반영 대기열에 다시 넣습니다.
+     * crc 가 맞지 않거나 잘린 레코드에서 그 세그먼트 읽기를 멈춥니다. (fsync 전에 죽은 마지막 group commit)
+     */
+    private void replay() throws IOException {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(p -> {
+                final String name = p.getFileName().toString();
+                return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+            }).sorted().toList();
+        }
+
+        final List<ChatDTO.Message> messages = new ArrayList<>();
+        final long now = System.currentTimeMillis();
+        for (Path file : files) {
+            final String name = file.getFileName().toString();
+            final long firstLsn = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            segments.put(firstLsn, file);
+
+            final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+            long lsn = firstLsn - 1;
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                final int length = buffer.getInt();
+                final int crc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) break;
+
+                final byte[] payload = new byte[length];
+                buffer.get(payload);
+                final CRC32C checksum = new CRC32C();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != crc) break;
+
+                final ChatDTO.Message message = readRecord(ByteBuffer.wrap(payload));
+                idGenerator.advancePast(message.getId());
+                lsn++;
+                if (lsn > replicatedLsn) {
+                    unreplicated.add(new Entry(lsn, message, now));
+                    indexUnreplicated(message);
+                    messages.add(message);
+                }
+            }
+            if (buffer.hasRemaining()) log.warn("WAL segment {} has a torn tail of {} bytes, ignored", name, buffer.remaining());
+            appendedLsn = Math.max(appendedLsn, lsn);
+        }
+        replicatedLsn = Math.min(replicatedLsn, appendedLsn);
+        replayed = List.copyOf(messages);
+        if (!messages.isEmpty()) log.info("Replaying {} WAL messages not yet in DB", messages.size());
+    }
+
+    private void openSegment(long firstLsn) throws IOException {
+        final Path file = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        final FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        // 같은 lsn 으로 시작하는 빈 세그먼트를 다시 여는 경우 이전 내용(잘린 꼬리)을 비움
+        channel.truncate(0);
+        if (active != null) active.close();
+        active = channel;
+        segments.put(firstLsn, file);
+    }
+
+    private double lagSeconds() {
+        final long oldest = oldestUnreplicatedAt;
+        return oldest == 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private static void writeRecord(ByteArrayOutputStream target, ChatDTO.Message message) throws IOException {
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream(128);
+        final DataOutputStream out = new DataOutputStream(raw);
+        final User user = message.getUser();
+        out.writeLong(message.getId());
+        out.writeLong(message.getRoomId());
+        out.writeLong(user == null || user.getId() == null ? -1 : user.getId());
+        final LocalDateTime createdAt = message.getCreatedAt() == null ? LocalDateTime.now(ZoneOffset.UTC) : message.getCreatedAt();
+        out.writeLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(createdAt.getNano());
+        writeString(out, message.getMessage());
+        writeString(out, user == null ? null : user.getName());
+
+        final byte[] payload = raw.toByteArray();
+        final CRC32C checksum = new CRC32C();
+        checksum.update(payload);
+        final DataOutputStream header = new DataOutputStream(target);
+        header.writeInt(payload.length);
+        header.writeInt((int) checksum.getValue());
+        header.write(payload);
+    }
+
+    private static ChatDTO.Message readRecord(ByteBuffer in) {
+        final long id = in.getLong();
+        final long roomId = in.getLong();
+        final long memberId = in.getLong();
+        final LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        final String message = readString(in);
+
+        final User user = new User();
+        user.setId(memberId < 0 ? null : memberId);
+        user.setName(readString(in));
+
+        return ChatDTO.Message.builder()
+                .id(id)
+                .roomId(roomId)
+                .user(user)
+                .type(ChatDTO.Message.MessageType.TALK)
+                .message(message)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        final int length = in.getInt();
+        if (length < 0) return null;
+        final byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
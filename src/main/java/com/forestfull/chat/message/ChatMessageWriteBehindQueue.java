@@ -0,0 +1,188 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 🔹 채팅 메시지 write-behind 큐
+ * sendMessage 스레드는 큐에 적재만 하고, 전용 drainer 스레드가 maxBatch 또는 maxLinger 기준으로
+ * 모아서 multi-row INSERT 합니다. 생성된 id 는 CompletableFuture 로 호출자에게 돌려줍니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChatMessageWriteBehindQueue {
+
+    public enum OverflowPolicy {
+        BLOCK,      // offer-timeout 동안 대기 후 실패
+        SYNC,       // 호출 스레드에서 즉시 단건 INSERT
+        REJECT      // 즉시 실패
+    }
+
+    private record Pending(ChatDTO.Message message, CompletableFuture<ChatDTO.Message> future) {
+    }
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.chat.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.chat.write-behind.max-batch:100}")
+    private int maxBatch;
+
+    @Value("${app.chat.write-behind.max-linger-millis:20}")
+    private long maxLingerMillis;
+
+    @Value("${app.chat.write-behind.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.chat.write-behind.offer-timeout-millis:500}")
+    private long offerTimeoutMillis;
+
+    private BlockingQueue<Pending> queue;
+    private Thread drainer;
+    private volatile boolean running;
+
+    private Timer flushTimer;
+    private Counter flushedCounter;
+    private Counter overflowCounter;
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        flushTimer = Timer.builder("chat.message.write-behind.flush")
+                .description("multi-row INSERT 소요 시간")
+                .register(meterRegistry);
+        flushedCounter = meterRegistry.counter("chat.message.write-behind.flushed");
+        overflowCounter = meterRegistry.counter("chat.message.write-behind.overflow", "policy", overflowPolicy.name());
+        Gauge.builder("chat.message.write-behind.queue.depth", queue, BlockingQueue::size)
+                .register(meterRegistry);
+
+        running = true;
+        drainer = new Thread(this::drainLoop, "chat-message-write-behind");
+        drainer.setDaemon(true);
+        drainer.start();
+        log.info("Chat message write-behind enabled: capacity={} maxBatch={} maxLinger={}ms policy={}",
+                queueCapacity, maxBatch, maxLingerMillis, overflowPolicy);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (!enabled) return;
+
+        running = false;
+        drainer.interrupt();
+        drainer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // 종료 시 남은 메시지는 호출 스레드에서 모두 flush
+        List<Pending> rest = new ArrayList<>();
+        while (queue.drainTo(rest, maxBatch) > 0) {
+            flush(rest);
+            rest.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 메시지를 큐에 적재합니다. 반환된 future 는 DB 에 저장되어 id 가 채워진 뒤 완료됩니다.
+     */
+    public CompletableFuture<ChatDTO.Message> submit(ChatDTO.Message message) {
+        final Pending pending = new Pending(message, new CompletableFuture<>());
+        if (queue.offer(pending)) return pending.future();
+
+        // overflow 는 큐에 넣지 못한 경우만 집계 (BLOCK 대기 후 적재에 성공하면 제외)
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) return pending.future();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                overflowCounter.increment();
+                pending.future().completeExceptionally(new RejectedExecutionException("write-behind queue is full"));
+            }
+            case SYNC -> {
+                overflowCounter.increment();
+                flush(List.of(pending));
+            }
+            case REJECT -> {
+                overflowCounter.increment();
+                pending.future().completeExceptionally(new RejectedExecutionException("write-behind queue is full"));
+            }
+        }
+        return pending.future();
+    }
+
+    private void drainLoop() {
+        final List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // 첫 메시지 기준으로 maxLinger 까지만 추가 메시지를 기다림
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxLingerMillis);
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    if (batch.size() >= maxBatch) break;
+
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+
+                    final Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException ignored) {
+                // stop() 에서 깨운 경우: 루프 조건에서 남은 큐를 마저 비움
+            } finally {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        final List<ChatDTO.Message> messages = batch.stream().map(Pending::message).toList();
+        final long started = System.nanoTime();
+        try {
+            chatMessageMapper.saveMessages(messages);
+            batch.forEach(p -> p.future().complete(p.message()));
+            flushedCounter.increment(batch.size());
+        } catch (Exception e) {
+            log.error("💥 Write-behind flush failed: size={} cause={}", batch.size(), e.getMessage());
+            batch.forEach(p -> p.future().completeExceptionally(e));
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+}
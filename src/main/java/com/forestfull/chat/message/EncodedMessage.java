@@ -0,0 +1,143 @@
+package com.forestfull.chat.message;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 🔹 한 번 직렬화된 메시지 (ChatDTO.WireMessage 의 UTF-8 JSON)
+ * Jackson 으로 다시 직렬화할 때는 객체를 다시 훑지 않고 저장된 바이트를 그대로 씁니다. (목록/스냅샷 응답 안에 끼워 넣는 용도)
+ * 불변 객체이므로 스레드 간에 그대로 공유해도 됩니다.
+ */
+public final class EncodedMessage implements JsonSerializable {
+
+    private final Long id;
+    private final byte[] json;
+
+    EncodedMessage(Long id, byte[] json) {
+        this.id = id;
+        this.json = json;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * 내부 배열을 그대로 반환합니다. 수정하면 안 됩니다.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    public int size() {
+        return json.length;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(new RawJson(json));
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 바이트 출력(UTF8JsonGenerator)에서는 배열 복사만 하고, 문자 출력에서만 문자열로 디코딩합니다.
+     * 따옴표 처리가 필요한 메서드는 raw 값 쓰기에서 호출되지 않으므로 SerializedString 에 맡깁니다.
+     */
+    private record RawJson(byte[] json) implements SerializableString {
+
+        @Override
+        public String getValue() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return json;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + json.length > buffer.length) return -1;
+            System.arraycopy(json, 0, buffer, offset, json.length);
+            return json.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            final String value = getValue();
+            if (offset + value.length() > buffer.length) return -1;
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(json);
+            return json.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (json.length > buffer.remaining()) return -1;
+            buffer.put(json);
+            return json.length;
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return quoted().asQuotedChars();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return quoted().asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return quoted().appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return quoted().appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return quoted().writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return quoted().putQuotedUTF8(buffer);
+        }
+
+        private SerializedString quoted() {
+            return new SerializedString(getValue());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🔹 clientMessageId 중복 전송 제거 (사용자 + clientMessageId 기준)
+ * 재접속 후 재전송된 메시지는 새로 저장하지 않고 처음 저장된 메시지를 돌려받습니다.
+ * 키 해시로 나눈 stripe 마다 삽입 순서 맵을 두고 stripe 단위로만 잠그므로, 서로 다른 사용자의 전송은 거의 부딪히지 않습니다.
+ * 항목은 ttl 이 지나거나 stripe 용량(max-entries / stripes)을 넘으면 오래된 것부터 제거됩니다.
+ */
+@Component
+public class MessageDeduplicator {
+
+    public static final int MAX_CLIENT_MESSAGE_ID_LENGTH = 64;
+
+    private record Key(Long memberId, String clientMessageId) {
+    }
+
+    private record Entry(CompletableFuture<ChatDTO.Message> message, long createdNanos) {
+    }
+
+    private final Stripe[] stripes;
+    private final int stripeCapacity;
+    private final long ttlNanos;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Counter duplicateCounter;
+    private final Counter evictedCounter;
+
+    public MessageDeduplicator(@Value("${app.chat.dedup.stripes:64}") int stripes,
+                               @Value("${app.chat.dedup.max-entries:100000}") int maxEntries,
+                               @Value("${app.chat.dedup.ttl-millis:300000}") long ttlMillis,
+                               MeterRegistry meterRegistry) {
+        final int stripeCount = Integer.highestOneBit(Math.max(1, stripes)); // 2의 거듭제곱으로 내림
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) this.stripes[i] = new Stripe();
+        this.stripeCapacity = Math.max(1, maxEntries / stripeCount);
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.duplicateCounter = meterRegistry.counter("chat.message.dedup.duplicates");
+        this.evictedCounter = meterRegistry.counter("chat.message.dedup.evicted");
+        Gauge.builder("chat.message.dedup.entries", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * 처음 보는 키면 pending 을 등록하고 null 을, 이미 있으면 먼저 등록된 future 를 반환합니다. (저장 중이면 저장 완료 시점에 완료됨)
+     */
+    public CompletableFuture<ChatDTO.Message> claim(Long memberId, String clientMessageId, CompletableFuture<ChatDTO.Message> pending) {
+        final Key key = new Key(memberId, clientMessageId);
+        final Stripe stripe = stripeOf(key);
+        final long now = System.nanoTime();
+        synchronized (stripe) {
+            stripe.expire(now);
+            final Entry existing = stripe.entries.get(key);
+            if (existing != null) {
+                duplicateCounter.increment();
+                return existing.message();
+            }
+            stripe.entries.put(key, new Entry(pending, now));
+            size.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * 저장에 실패한 경우 등록을 취소해 같은 clientMessageId 로 다시 보낼 수 있게 합니다.
+     */
+    public void release(Long memberId, String clientMessageId, CompletableFuture<ChatDTO.Message> pending) {
+        final Key key = new Key(memberId, clientMessageId);
+        final Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            final Entry entry = stripe.entries.get(key);
+            if (entry != null && entry.message() == pending) {
+                stripe.entries.remove(key);
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private Stripe stripeOf(Key key) {
+        final int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    private final class Stripe {
+        // 삽입 순서 = 생성 시각 순서이므로 앞에서부터 만료/초과분을 제거
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= stripeCapacity) return false;
+                size.decrementAndGet();
+                evictedCounter.increment();
+                return true;
+            }
+        };
+
+        void expire(long now) {
+            final Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().createdNanos() < ttlNanos) break;
+                iterator.remove();
+                size.decrementAndGet();
+            }
+        }
+    }
+}
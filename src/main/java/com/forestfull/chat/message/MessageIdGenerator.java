@@ -0,0 +1,47 @@
+package com.forestfull.chat.message;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔹 DB 를 거치지 않는 메시지 id 발급기 (WAL 모드)
+ * id = 경과 ms(41bit, 2025-01-01 UTC 기준) | workerId(4bit) | 순번(8bit)
+ * 53bit 이내라 브라우저 number 로도 정확히 표현되고, 기존 AUTO_INCREMENT id 보다 항상 큽니다.
+ * 같은 ms 에 256 개를 넘으면 다음 ms 를 당겨 쓰므로 노드 안에서는 항상 단조 증가합니다.
+ */
+final class MessageIdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int WORKER_BITS = 4;
+    static final int SEQUENCE_BITS = 8;
+    static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    private final long workerId;
+
+    // (경과 ms << SEQUENCE_BITS) | 순번
+    private final AtomicLong state = new AtomicLong();
+
+    MessageIdGenerator(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID + ": " + workerId);
+        }
+        this.workerId = workerId;
+    }
+
+    long next() {
+        final long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        final long next = state.accumulateAndGet(now, (previous, floor) -> Math.max(previous + 1, floor));
+        final long elapsed = next >>> SEQUENCE_BITS;
+        final long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (elapsed << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * 재시작 시 시계가 뒤로 가더라도 이전에 발급한 id 보다 크게 이어서 발급하도록 맞춥니다.
+     */
+    void advancePast(long issuedId) {
+        final long elapsed = issuedId >>> (WORKER_BITS + SEQUENCE_BITS);
+        final long sequence = issuedId & ((1L << SEQUENCE_BITS) - 1);
+        state.accumulateAndGet((elapsed << SEQUENCE_BITS) | sequence, Math::max);
+    }
+}
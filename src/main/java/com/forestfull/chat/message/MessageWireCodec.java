@@ -0,0 +1,95 @@
+package com.forestfull.chat.message;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🔹 메시지 → 클라이언트 전송 형식(ChatDTO.WireMessage) 직렬화
+ * 결과는 메시지 객체에 붙여 두므로, 같은 메시지를 다시 보낼 때(최근 메시지 캐시, 재접속 재전송, 스냅샷)는 직렬화하지 않습니다.
+ * epoch/seq 가 바뀌는 브로드캐스트 시점에만 refresh 로 다시 만듭니다.
+ */
+@Component
+public class MessageWireCodec {
+
+    private final ObjectWriter writer;
+    private final Counter encodedCounter;
+    private final Counter reusedCounter;
+    private final DistributionSummary bytesSummary;
+
+    public MessageWireCodec(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.writer = objectMapper.writerFor(ChatDTO.WireMessage.class);
+        this.encodedCounter = meterRegistry.counter("chat.message.wire.encoded");
+        this.reusedCounter = meterRegistry.counter("chat.message.wire.reused");
+        this.bytesSummary = DistributionSummary.builder("chat.message.wire.bytes")
+                .description("클라이언트 전송용 메시지 크기")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 이미 직렬화된 결과가 있으면 그대로, 없으면 직렬화해서 메시지에 붙인 뒤 반환합니다.
+     * 여러 스레드가 동시에 처음 요청하면 각자 만들 수 있지만 결과는 같습니다. (EncodedMessage 는 불변)
+     */
+    public EncodedMessage encode(ChatDTO.Message message) {
+        final EncodedMessage encoded = message.getEncoded();
+        if (encoded != null) {
+            reusedCounter.increment();
+            return encoded;
+        }
+        return refresh(message);
+    }
+
+    /**
+     * 현재 필드로 다시 직렬화합니다. (브로드캐스트에서 epoch/seq 를 붙인 직후)
+     */
+    public EncodedMessage refresh(ChatDTO.Message message) {
+        final EncodedMessage encoded;
+        try {
+            encoded = new EncodedMessage(message.getId(), writer.writeValueAsBytes(toWire(message)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        encodedCounter.increment();
+        bytesSummary.record(encoded.size());
+        message.setEncoded(encoded);
+        return encoded;
+    }
+
+    public List<EncodedMessage> encodeAll(List<ChatDTO.Message> messages) {
+        final List<EncodedMessage> result = new ArrayList<>(messages.size());
+        for (ChatDTO.Message message : messages) result.add(encode(message));
+        return result;
+    }
+
+    static ChatDTO.WireMessage toWire(ChatDTO.Message message) {
+        final User user = message.getUser();
+        return ChatDTO.WireMessage.builder()
+                .v(ChatDTO.WireMessage.VERSION)
+                .id(message.getId())
+                .clientMessageId(message.getClientMessageId())
+                .roomId(message.getRoomId())
+                .type(message.getType())
+                .message(message.getMessage())
+                .createdAt(message.getCreatedAt())
+                .epoch(message.getEpoch())
+                .seq(message.getSeq())
+                .user(user == null ? null : ChatDTO.WireUser.builder()
+                        .id(user.getId())
+                        .username(user.getUsername())
+                        .displayName(user.getDisplayName())
+                        .profileImage(user.getProfileImage())
+                        .build())
+                .build();
+    }
+}
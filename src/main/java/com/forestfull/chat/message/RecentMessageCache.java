@@ -0,0 +1,273 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.room.ChatRoomMapper;
+import com.forestfull.chat.room.RoomListCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔹 방별 최근 메시지 링 버퍼
+ * 저장이 확정(커밋)된 시점에 채워지고, 캐시에 없는 방은 최초 조회 시 DB 에서 한 번 로드합니다. (WAL 모드면 DB 반영 전 메시지도 합침)
+ * 없는 방 id 로는 링을 만들지 않으며, 링 배열 자체도 메모리 예산에 포함합니다.
+ * 전체 메모리 예산(max-bytes)을 넘으면 가장 오래 조회되지 않은 방부터, idle 시간이 지난 방은 주기적으로 제거합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecentMessageCache {
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final ChatMessageWal messageWal;
+    private final ChatRoomMapper chatRoomMapper;
+    private final RoomListCache roomListCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.recent-cache.capacity-per-room:50}")
+    private int capacityPerRoom;
+
+    @Value("${app.chat.recent-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.chat.recent-cache.idle-evict-millis:600000}")
+    private long idleEvictMillis;
+
+    // key: roomId
+    private final ConcurrentMap<Long, RoomBuffer> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        hitCounter = meterRegistry.counter("chat.message.recent-cache.hit");
+        missCounter = meterRegistry.counter("chat.message.recent-cache.miss");
+        Gauge.builder("chat.message.recent-cache.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("chat.message.recent-cache.rooms", rooms, Map::size).register(meterRegistry);
+    }
+
+    public int getCapacityPerRoom() {
+        return capacityPerRoom;
+    }
+
+    /**
+     * 최근 메시지를 최신순(DB 조회와 동일한 순서)으로 최대 limit 개 반환합니다.
+     */
+    public List<ChatDTO.Message> getRecent(Long roomId, int limit) {
+        RoomBuffer buffer = rooms.get(roomId);
+        if (buffer == null) {
+            if (!roomExists(roomId)) return List.of();
+            buffer = rooms.computeIfAbsent(roomId, RoomBuffer::new);
+        }
+        final List<ChatDTO.Message> result = buffer.snapshot(limit);
+        enforceBudget();
+        return result;
+    }
+
+    /**
+     * 저장된 메시지를 해당 방 버퍼에 추가합니다. 아직 로드되지 않은 방은 다음 조회 때 DB 에서 읽으므로 무시합니다.
+     */
+    public void append(ChatDTO.Message message) {
+        // 저장되지 않은 입장/퇴장 메시지(id 없음)는 기록에 없으므로 넣지 않음
+        if (message.getRoomId() == null || message.getId() == null) return;
+
+        final RoomBuffer buffer = rooms.get(message.getRoomId());
+        if (buffer == null) return;
+
+        buffer.append(message);
+        enforceBudget();
+    }
+
+    /**
+     * 재시작 시 WAL 에서 다시 읽은 (DB 반영 전일 수 있는) 메시지를 id 순서로 채웁니다.
+     * 방 버퍼를 DB 에서 먼저 로드한 뒤 넣으므로, 이후 조회의 DB 로드가 아직 반영되지 않은 메시지를 빠뜨리지 않습니다.
+     */
+    public void seed(List<ChatDTO.Message> messages) {
+        messages.stream()
+                .filter(message -> message.getRoomId() != null && message.getId() != null)
+                .sorted(Comparator.comparingLong(ChatDTO.Message::getId))
+                .forEach(message -> rooms.computeIfAbsent(message.getRoomId(), RoomBuffer::new).seed(message));
+        enforceBudget();
+    }
+
+    // 로비 목록에 없으면 다른 노드에서 방금 만든 방일 수 있으므로 DB 로 한 번 더 확인
+    private boolean roomExists(Long roomId) {
+        return roomListCache.contains(roomId) || chatRoomMapper.findRoomById(roomId) != null;
+    }
+
+    public void evict(Long roomId) {
+        final RoomBuffer removed = rooms.remove(roomId);
+        if (removed != null) removed.release();
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.recent-cache.sweep-millis:60000}")
+    void evictIdleRooms() {
+        final long threshold = System.currentTimeMillis() - idleEvictMillis;
+        rooms.values().stream()
+                .filter(buffer -> buffer.lastAccess < threshold)
+                .map(buffer -> buffer.roomId)
+                .toList()
+                .forEach(this::evict);
+    }
+
+    private void enforceBudget() {
+        if (totalBytes.get() <= maxBytes) return;
+
+        // 예산 초과 시 가장 오래 조회되지 않은 방부터 제거
+        final List<RoomBuffer> candidates = new ArrayList<>(rooms.values());
+        candidates.sort(Comparator.comparingLong(buffer -> buffer.lastAccess));
+        for (RoomBuffer buffer : candidates) {
+            if (totalBytes.get() <= maxBytes) break;
+            evict(buffer.roomId);
+            log.debug("Recent message cache over budget, evicted room {}", buffer.roomId);
+        }
+    }
+
+    // 링 배열(메시지 참조 + 크기) 과 버퍼 객체 대략치
+    private static long ringBytes(int capacity) {
+        return 128 + 12L * capacity;
+    }
+
+    private static long estimateBytes(ChatDTO.Message message) {
+        long bytes = 96; // 객체 헤더 + 필드 참조 대략치
+        if (message.getMessage() != null) bytes += 40 + 2L * message.getMessage().length();
+        if (message.getUser() != null) bytes += 160;
+        // 클라이언트 전송용 직렬화 결과가 나중에 붙으므로 미리 잡아 둠 (고정 필드 약 200바이트 + 본문)
+        bytes += 216 + (message.getMessage() == null ? 0 : message.getMessage().length());
+        return bytes;
+    }
+
+    /**
+     * id 오름차순으로 정렬된 고정 크기 링 버퍼. 방 단위 모니터로 보호되며, 로드 중 들어온 append 는 로드가 끝날 때까지 대기합니다.
+     */
+    private final class RoomBuffer {
+        private final Long roomId;
+        private final ChatDTO.Message[] ring;
+        private final long[] sizes;
+        private final long ringBytes;
+        private int start;  // 가장 오래된 메시지 위치
+        private int size;
+        private boolean loaded;
+        private boolean released;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        RoomBuffer(Long roomId) {
+            this.roomId = roomId;
+            this.ring = new ChatDTO.Message[capacityPerRoom];
+            this.sizes = new long[capacityPerRoom];
+            this.ringBytes = ringBytes(capacityPerRoom);
+            totalBytes.addAndGet(ringBytes);
+        }
+
+        synchronized List<ChatDTO.Message> snapshot(int limit) {
+            lastAccess = System.currentTimeMillis();
+            // 조회 도중 제거된 버퍼는 더 이상 채우지 않고 DB 결과를 그대로 반환
+            if (released) return chatMessageMapper.findRecentMessages(roomId, Math.min(limit, capacityPerRoom));
+
+            if (loaded) {
+                hitCounter.increment();
+            } else {
+                missCounter.increment();
+                load();
+            }
+
+            final int count = Math.min(limit, size);
+            final List<ChatDTO.Message> result = new ArrayList<>(count);
+            for (int i = size - 1; i >= size - count; i--) result.add(at(i));
+            return result;
+        }
+
+        synchronized void append(ChatDTO.Message message) {
+            if (!loaded || released) return;
+            insert(message);
+        }
+
+        synchronized void seed(ChatDTO.Message message) {
+            if (released) return;
+            if (!loaded) load();
+            insert(message);
+        }
+
+        synchronized void release() {
+            if (released) return;
+            long freed = ringBytes;
+            for (long s : sizes) freed += s;
+            totalBytes.addAndGet(-freed);
+            Arrays.fill(ring, null);
+            Arrays.fill(sizes, 0);
+            size = 0;
+            released = true;
+        }
+
+        private void load() {
+            // WAL 꼬리를 먼저 읽어야 DB 조회 사이에 반영되어 빠진 메시지도 DB 결과에 들어 있음
+            final List<ChatDTO.Message> walTail = messageWal.getUnreplicated(roomId);
+            for (ChatDTO.Message message : chatMessageMapper.findRecentMessages(roomId, capacityPerRoom)) insert(message);
+            for (ChatDTO.Message message : walTail) insert(message);
+            loaded = true;
+        }
+
+        /**
+         * id 순서 위치에 넣습니다. 저장 완료 순서가 id 순서와 다를 수 있으므로 늦게 온 메시지도 제자리에 들어가며,
+         * 로드 쿼리에 이미 포함된 같은 id 는 무시하고, 가득 찼으면 가장 오래된 메시지를 버립니다. (그보다 오래된 메시지는 넣지 않음)
+         */
+        private void insert(ChatDTO.Message message) {
+            final Long id = message.getId();
+            int position = size;
+            if (id != null) {
+                while (position > 0 && idAt(position - 1) >= id) {
+                    if (idAt(position - 1) == id) return;
+                    position--;
+                }
+            }
+            if (size == ring.length) {
+                if (position == 0) return;
+                totalBytes.addAndGet(-sizes[start]);
+                ring[start] = null;
+                sizes[start] = 0;
+                start = (start + 1) % ring.length;
+                size--;
+                position--;
+            }
+            for (int i = size; i > position; i--) {
+                ring[slot(i)] = ring[slot(i - 1)];
+                sizes[slot(i)] = sizes[slot(i - 1)];
+            }
+            final long bytes = estimateBytes(message);
+            totalBytes.addAndGet(bytes);
+            ring[slot(position)] = message;
+            sizes[slot(position)] = bytes;
+            size++;
+        }
+
+        private ChatDTO.Message at(int index) {
+            return ring[slot(index)];
+        }
+
+        private long idAt(int index) {
+            final Long id = at(index).getId();
+            return id == null ? Long.MAX_VALUE : id;
+        }
+
+        private int slot(int index) {
+            return (start + index) % ring.length;
+        }
+    }
+}
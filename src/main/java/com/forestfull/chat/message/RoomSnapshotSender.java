@@ -0,0 +1,116 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.room.ChatRoomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🔹 방 구독 스냅샷
+ * snapshot 헤더를 붙여 /topic/rooms/{roomId} 를 구독하면, 최근 메시지와 참여자 스냅샷을 그 구독에만 바로 보냅니다.
+ * 브로커를 거치지 않고 clientOutboundChannel 로 보내므로 (@SubscribeMapping 응답과 같은 방식) 다른 구독자는 받지 않습니다.
+ * 메시지는 마지막 seq 와 함께 브로드캐스터의 링에서 읽으므로, 스냅샷에 없는 메시지는 모두 구독으로 도착합니다.
+ * 링에 limit 개가 없으면(재시작 등으로 로그가 새로 만들어짐) 링의 가장 오래된 메시지보다 이전 메시지를 저장소에서 채웁니다.
+ */
+@Slf4j
+@Component
+public class RoomSnapshotSender {
+
+    public static final String SNAPSHOT_HEADER = "snapshot";
+
+    private static final Pattern ROOM_TOPIC = Pattern.compile("^" + ChatMessageBroadcaster.ROOM_TOPIC_PREFIX + "(\\d+)$");
+
+    private final ChatMessageService chatMessageService;
+    private final ChatRoomService chatRoomService;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
+    private final SimpMessagingTemplate sessionTemplate;
+    private final Timer snapshotTimer;
+
+    @Value("${app.chat.subscribe-snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.chat.subscribe-snapshot.message-count:50}")
+    private int messageCount;
+
+    public RoomSnapshotSender(ChatMessageService chatMessageService,
+                              ChatRoomService chatRoomService,
+                              ChatMessageBroadcaster chatMessageBroadcaster,
+                              @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                              @Qualifier("brokerMessagingTemplate") SimpMessagingTemplate brokerMessagingTemplate,
+                              MeterRegistry meterRegistry) {
+        this.chatMessageService = chatMessageService;
+        this.chatRoomService = chatRoomService;
+        this.chatMessageBroadcaster = chatMessageBroadcaster;
+        this.sessionTemplate = new SimpMessagingTemplate(clientOutboundChannel);
+        this.sessionTemplate.setMessageConverter(brokerMessagingTemplate.getMessageConverter());
+        this.snapshotTimer = Timer.builder("chat.room.subscribe-snapshot")
+                .description("구독 스냅샷 생성 + 전송 요청 소요 시간")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        if (!enabled) return;
+
+        final StompHeaderAccessor subscribe = StompHeaderAccessor.wrap(event.getMessage());
+        if (!"true".equals(subscribe.getFirstNativeHeader(SNAPSHOT_HEADER)) || subscribe.getUser() == null) return;
+
+        final String destination = subscribe.getDestination();
+        final Matcher matcher = destination == null ? null : ROOM_TOPIC.matcher(destination);
+        if (matcher == null || !matcher.matches()) return;
+
+        final Long roomId = Long.valueOf(matcher.group(1));
+        snapshotTimer.record(() -> send(roomId, destination, subscribe.getSessionId(), subscribe.getSubscriptionId()));
+    }
+
+    private void send(Long roomId, String destination, String sessionId, String subscriptionId) {
+        // lastSeq 와 그 seq 까지 전송된 메시지를 같은 모니터 안에서 함께 읽음
+        final ChatMessageBroadcaster.RecentMessages recent = chatMessageBroadcaster.recent(roomId, messageCount);
+        final ChatDTO.RoomSnapshot snapshot = ChatDTO.RoomSnapshot.builder()
+                .roomId(roomId)
+                .epoch(recent.epoch())
+                .lastSeq(recent.lastSeq())
+                .messages(withOlderMessages(roomId, recent.messages()))
+                .participants(chatRoomService.getParticipantSnapshot(roomId))
+                .build();
+
+        final SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setNativeHeader(SNAPSHOT_HEADER, "true");
+        headers.setLeaveMutable(true);
+        sessionTemplate.convertAndSend(destination, snapshot, headers.getMessageHeaders());
+    }
+
+    /**
+     * 링의 메시지가 모자라면 링의 가장 작은 id 보다 이전 메시지만 저장소에서 붙임 (최신순 유지)
+     * 링이 비어 있으면 저장은 됐지만 아직 전송 전인 메시지가 섞일 수 있으나, 구독으로 다시 오면 클라이언트가 id 로 걸러냄
+     */
+    private List<EncodedMessage> withOlderMessages(Long roomId, List<EncodedMessage> fromRing) {
+        if (fromRing.size() >= messageCount) return fromRing;
+
+        final long oldestId = fromRing.stream().mapToLong(EncodedMessage::getId).min().orElse(Long.MAX_VALUE);
+        final List<EncodedMessage> messages = new ArrayList<>(fromRing);
+        for (EncodedMessage stored : chatMessageService.getRecentMessages(roomId, messageCount)) {
+            if (messages.size() >= messageCount) break;
+            if (stored.getId() != null && stored.getId() < oldestId) messages.add(stored);
+        }
+        return messages;
+    }
+}
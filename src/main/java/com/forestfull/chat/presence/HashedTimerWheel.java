@@ -0,0 +1,146 @@
+package com.forestfull.chat.presence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 🔹 해시 타이머 휠
+ * 만료 시각을 tick 단위 슬롯에 나눠 담고, 한 스레드가 tick 마다 현재 슬롯만 훑습니다.
+ * 등록/취소는 O(1) (큐 적재, 플래그 설정) 이라 수십만 개의 유예 타이머도 스레드 하나로 처리합니다.
+ * 만료 작업은 휠 스레드에서 실행되므로 짧게 끝나야 합니다.
+ */
+@Slf4j
+public class HashedTimerWheel implements AutoCloseable {
+
+    public final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return 실행 전에 취소했으면 true (이미 실행됐거나 취소된 경우 false)
+         */
+        public boolean cancel() {
+            if (!done.compareAndSet(false, true)) return false;
+            pending.decrementAndGet();
+            return true;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] wheel;
+    private final Queue<Timeout> registrations = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;  // 휠 스레드 전용
+
+    @SuppressWarnings("unchecked")
+    public HashedTimerWheel(String name, long tickMillis, int wheelSize) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        // 슬롯 위치를 나머지 대신 비트 마스크로 구하기 위해 2 의 거듭제곱으로 맞춤
+        final int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = size - 1;
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) wheel[i] = new ArrayList<>();
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delayMillis) {
+        final long elapsedTicks = (System.nanoTime() - startNanos) / tickNanos;
+        final long delayTicks = Math.max(1, (TimeUnit.MILLISECONDS.toNanos(delayMillis) + tickNanos - 1) / tickNanos);
+        final Timeout timeout = new Timeout(task, elapsedTicks + delayTicks);
+        pending.incrementAndGet();
+        registrations.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 아직 실행/취소되지 않은 타이머 수
+     */
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            final long deadline = startNanos + (tick + 1) * tickNanos;
+            final long sleepNanos = deadline - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                    continue;
+                }
+            }
+
+            transferRegistrations();
+            expire((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    private void transferRegistrations() {
+        Timeout timeout;
+        while ((timeout = registrations.poll()) != null) {
+            if (timeout.done.get()) continue;
+
+            // 이미 지난 deadline 은 현재 슬롯에 넣어 이번 tick 에 실행
+            final long target = Math.max(timeout.deadlineTick, tick);
+            timeout.remainingRounds = (target - tick) / wheel.length;
+            wheel[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void expire(int slot) {
+        final List<Timeout> bucket = wheel[slot];
+        if (bucket.isEmpty()) return;
+
+        // 중간 삭제 비용을 피하려고 남는 타이머만 새 목록으로 옮김
+        final List<Timeout> remaining = new ArrayList<>();
+        for (Timeout timeout : bucket) {
+            if (timeout.done.get()) continue;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                remaining.add(timeout);
+                continue;
+            }
+
+            // 동시에 cancel() 이 이기면 실행하지 않음
+            if (!timeout.done.compareAndSet(false, true)) continue;
+            pending.decrementAndGet();
+            try {
+                timeout.task.run();
+            } catch (Exception e) {
+                log.error("💥 Timer task failed: {}", e.getMessage(), e);
+            }
+        }
+        wheel[slot] = remaining;
+    }
+}
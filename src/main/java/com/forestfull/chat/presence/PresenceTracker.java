@@ -0,0 +1,271 @@
+package com.forestfull.chat.presence;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageBroadcaster;
+import com.forestfull.chat.room.ChatRoomService;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 🔹 STOMP 세션 기준 참여 상태
+ * /app/chat.enter 로 방에 들어온 세션을 기억해 두고, 세션이 끊기면 grace 시간 뒤에 자동 퇴장시킵니다.
+ * 같은 회원의 다른 세션이 남아 있거나 grace 안에 다시 입장하면 퇴장하지 않습니다.
+ * 만료된 퇴장은 모아서 DELETE 한 번으로 반영합니다. (인덱스/인원수는 ChatRoomService 가 커밋 후에 바꿈)
+ * 시작 시에는 DB 참여자 중 세션이 없는 회원도 grace 뒤 퇴장하도록 휠에 올립니다. (재시작 전에 끊긴 세션 정리)
+ */
+@Slf4j
+@Component
+public class PresenceTracker implements DisposableBean {
+
+    private record PresenceKey(Long roomId, Long memberId) {
+    }
+
+    // 회원-방 단위 상태 (살아 있는 세션 수 + 대기 중인 자동 퇴장)
+    private static final class Presence {
+        private int liveSessions;
+        private HashedTimerWheel.Timeout pendingLeave;
+    }
+
+    private record SessionRooms(Long memberId, Set<Long> roomIds) {
+    }
+
+    private final ChatRoomService chatRoomService;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
+    private final HashedTimerWheel timerWheel;
+    private final long graceMillis;
+    private final int maxBatch;
+    private final boolean seedOnStartup;
+    private final Counter autoLeaveCounter;
+
+    // key: STOMP sessionId
+    private final ConcurrentMap<String, SessionRooms> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<PresenceKey, Presence> presences = new ConcurrentHashMap<>();
+    private final Queue<PresenceKey> expired = new ConcurrentLinkedQueue<>();
+
+    public PresenceTracker(ChatRoomService chatRoomService,
+                           ChatMessageBroadcaster chatMessageBroadcaster,
+                           @Value("${app.chat.presence.grace-millis:30000}") long graceMillis,
+                           @Value("${app.chat.presence.tick-millis:100}") long tickMillis,
+                           @Value("${app.chat.presence.wheel-size:512}") int wheelSize,
+                           @Value("${app.chat.presence.max-batch:500}") int maxBatch,
+                           @Value("${app.chat.presence.seed-on-startup:true}") boolean seedOnStartup,
+                           MeterRegistry meterRegistry) {
+        this.chatRoomService = chatRoomService;
+        this.chatMessageBroadcaster = chatMessageBroadcaster;
+        this.graceMillis = graceMillis;
+        this.maxBatch = maxBatch;
+        this.seedOnStartup = seedOnStartup;
+        this.timerWheel = new HashedTimerWheel("presence-wheel", tickMillis, wheelSize);
+        this.autoLeaveCounter = meterRegistry.counter("chat.presence.auto-leave");
+
+        Gauge.builder("chat.presence.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("chat.presence.pending-leaves", timerWheel, HashedTimerWheel::pendingCount).register(meterRegistry);
+    }
+
+    /**
+     * 재시작 전 세션은 모두 끊겼으므로, DB 참여자 전원에게 grace 뒤 자동 퇴장을 걸어 둠 (그 안에 재접속하면 onEnter 에서 취소)
+     * 다른 노드의 세션은 보이지 않으므로 클러스터(TCP) 모드에서는 seed-on-startup 을 끕니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void seedFromDatabase() {
+        if (!seedOnStartup) return;
+
+        int seeded = 0;
+        for (ChatDTO.Participant participant : chatRoomService.getAllParticipants()) {
+            final boolean[] scheduled = {false};
+            presences.compute(new PresenceKey(participant.getRoomId(), participant.getUserId()), (key, presence) -> {
+                if (presence != null) return presence;
+                final Presence orphan = new Presence();
+                orphan.pendingLeave = timerWheel.schedule(() -> expire(key, orphan), graceMillis);
+                scheduled[0] = true;
+                return orphan;
+            });
+            if (scheduled[0]) seeded++;
+        }
+        log.info("Presence seeded from DB: {} participants pending auto leave", seeded);
+    }
+
+    /**
+     * 세션이 방에 입장 (재접속이면 대기 중인 자동 퇴장 취소)
+     */
+    public void onEnter(String sessionId, Long memberId, Long roomId) {
+        if (sessionId == null || memberId == null || roomId == null) return;
+
+        final SessionRooms session = sessions.computeIfAbsent(sessionId, k -> new SessionRooms(memberId, ConcurrentHashMap.newKeySet()));
+        if (!session.roomIds().add(roomId)) return;
+
+        presences.compute(new PresenceKey(roomId, memberId), (key, presence) -> {
+            final Presence current = presence == null ? new Presence() : presence;
+            current.liveSessions++;
+            if (current.pendingLeave != null) {
+                current.pendingLeave.cancel();
+                current.pendingLeave = null;
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 명시적 퇴장 (이미 DB 에서 빠졌으므로 상태만 정리)
+     */
+    public void onLeave(String sessionId, Long memberId, Long roomId) {
+        if (sessionId != null) {
+            final SessionRooms session = sessions.get(sessionId);
+            if (session != null) session.roomIds().remove(roomId);
+        }
+
+        final Presence removed = presences.remove(new PresenceKey(roomId, memberId));
+        if (removed != null && removed.pendingLeave != null) removed.pendingLeave.cancel();
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        final SessionRooms session = sessions.remove(event.getSessionId());
+        if (session == null) return;
+
+        for (Long roomId : session.roomIds()) {
+            presences.computeIfPresent(new PresenceKey(roomId, session.memberId()), (key, presence) -> {
+                presence.liveSessions--;
+                if (presence.liveSessions <= 0 && presence.pendingLeave == null) {
+                    presence.pendingLeave = timerWheel.schedule(() -> expire(key, presence), graceMillis);
+                }
+                return presence;
+            });
+        }
+    }
+
+    /**
+     * 휠 스레드에서 실행: 그 사이 다시 입장하지 않았으면 퇴장 대기열에 넣음
+     */
+    private void expire(PresenceKey key, Presence presence) {
+        final boolean[] leaving = {false};
+        presences.computeIfPresent(key, (k, current) -> {
+            if (current != presence || current.liveSessions > 0) return current;
+            leaving[0] = true;
+            return null;
+        });
+        if (leaving[0]) expired.add(key);
+    }
+
+    /**
+     * 만료된 퇴장을 batch 로 DB 에 반영하고, 실제로 빠진 참여자만 퇴장 메시지/참여자 변경을 전송
+     */
+    @Scheduled(fixedDelayString = "${app.chat.presence.flush-millis:500}")
+    void flushExpired() {
+        while (!expired.isEmpty()) {
+            final List<ChatDTO.Participant> batch = new ArrayList<>();
+            final Map<PresenceKey, Presence> claimed = new HashMap<>();
+            PresenceKey key;
+            while (batch.size() < maxBatch && (key = expired.poll()) != null) {
+                // 대기열에 들어간 뒤 다시 입장한 경우 제외. 확인과 같은 lock 안에서 표시(marker)를 넣어, DB 반영 중 입장한 세션이 표시에 쌓이게 함
+                final Presence marker = claim(key);
+                if (marker == null) continue;
+                claimed.put(key, marker);
+                batch.add(ChatDTO.Participant.builder().roomId(key.roomId()).userId(key.memberId()).build());
+            }
+            if (batch.isEmpty()) continue;
+
+            final List<ChatDTO.Participant> left;
+            try {
+                left = chatRoomService.leaveRooms(batch);
+            } catch (Exception e) {
+                // 메모리 상태는 DB 반영 후에만 바뀌므로, 그 사이 다시 입장하지 않은 참여자만 다음 주기에 재시도
+                log.error("💥 Auto leave failed for {} participants: {}", batch.size(), e.getMessage());
+                claimed.forEach((k, marker) -> {
+                    if (release(k, marker) == 0) expired.add(k);
+                });
+                return;
+            }
+
+            // DB 반영 중 다시 입장한 참여자는 방금 지워졌으므로 다시 입장시키고 퇴장 메시지는 보내지 않음
+            final Set<PresenceKey> rejoined = new HashSet<>();
+            claimed.forEach((k, marker) -> {
+                if (release(k, marker) > 0) rejoined.add(k);
+            });
+            for (PresenceKey k : rejoined) {
+                try {
+                    chatRoomService.enterRoom(k.roomId(), k.memberId());
+                } catch (Exception e) {
+                    log.error("💥 Re-enter after auto leave failed: room={} member={} {}", k.roomId(), k.memberId(), e.getMessage());
+                }
+            }
+
+            final List<ChatDTO.Participant> announced = left.stream()
+                    .filter(p -> !rejoined.contains(new PresenceKey(p.getRoomId(), p.getUserId())))
+                    .toList();
+            autoLeaveCounter.increment(announced.size());
+            announced.forEach(this::broadcastLeave);
+            log.info("Auto leave after disconnect: {} participants ({} re-entered during leave)", announced.size(), rejoined.size());
+        }
+    }
+
+    /**
+     * 아직 다시 입장하지 않았으면 빈 Presence 를 표시로 넣고 반환 (다시 입장했으면 null)
+     */
+    private Presence claim(PresenceKey key) {
+        final Presence[] marker = {null};
+        presences.compute(key, (k, presence) -> {
+            if (presence != null) return presence;
+            marker[0] = new Presence();
+            return marker[0];
+        });
+        return marker[0];
+    }
+
+    /**
+     * 표시를 걷어 내고, 그 사이 입장한 세션 수를 반환 (세션이 있으면 그대로 일반 상태로 남김)
+     */
+    private int release(PresenceKey key, Presence marker) {
+        final int[] live = {0};
+        presences.computeIfPresent(key, (k, presence) -> {
+            if (presence != marker) return presence;
+            live[0] = presence.liveSessions;
+            return presence.liveSessions > 0 ? presence : null;
+        });
+        return live[0];
+    }
+
+    private void broadcastLeave(ChatDTO.Participant participant) {
+        final User user = User.builder()
+                .id(participant.getUserId())
+                .name(participant.getUsername())
+                .displayName(participant.getDisplayName())
+                .profileImage(participant.getProfileImage())
+                .build();
+
+        ChatDTO.Message leaveMsg = new ChatDTO.Message();
+        leaveMsg.setRoomId(participant.getRoomId());
+        leaveMsg.setType(ChatDTO.Message.MessageType.LEAVE);
+        leaveMsg.setUser(user);
+        leaveMsg.setMessage(participant.getDisplayName() + "님이 퇴장했습니다");
+
+        // 참여자 변경분은 leaveRooms 커밋 시 전송됨
+        chatMessageBroadcaster.broadcast(leaveMsg);
+    }
+
+    @Override
+    public void destroy() {
+        timerWheel.close();
+    }
+}
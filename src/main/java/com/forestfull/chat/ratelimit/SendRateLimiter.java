@@ -0,0 +1,146 @@
+package com.forestfull.chat.ratelimit;
+
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 🔹 /app/chat.sendMessage 전송 제한 (사용자별 + 방별 토큰 버킷)
+ * 버킷은 GCRA 형태로 "다음 토큰이 생기는 시각" 하나만 AtomicLong 에 두고 CAS 로 갱신하므로 락이 없습니다.
+ * 사용자 한도는 역할별(rate/burst)로, 여러 역할이면 가장 넉넉한 한도를 적용합니다.
+ */
+@Slf4j
+@Component
+public class SendRateLimiter {
+
+    public record Limit(double perSecond, int burst) {
+        long intervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        }
+
+        /**
+         * "5/10" → 초당 5개, 최대 10개 연속
+         */
+        static Limit parse(String spec) {
+            final String[] parts = spec.trim().split("/");
+            return new Limit(Double.parseDouble(parts[0]), Integer.parseInt(parts[1]));
+        }
+    }
+
+    public enum Scope {
+        USER, ROOM
+    }
+
+    private final Map<String, Limit> roleLimits;
+    private final Limit defaultUserLimit;
+    private final Limit roomLimit;
+    private final long idleEvictNanos;
+
+    private final ConcurrentMap<Long, Bucket> userBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Bucket> roomBuckets = new ConcurrentHashMap<>();
+    private final Counter userRejected;
+    private final Counter roomRejected;
+
+    public SendRateLimiter(@Value("${app.chat.rate-limit.user:ROLE_USER=5/10,ROLE_MANAGER=10/20,ROLE_ADMIN=50/100}") String userLimits,
+                           @Value("${app.chat.rate-limit.room:100/200}") String roomLimit,
+                           @Value("${app.chat.rate-limit.idle-evict-millis:300000}") long idleEvictMillis,
+                           MeterRegistry meterRegistry) {
+        this.roleLimits = Arrays.stream(userLimits.split(","))
+                .filter(StringUtils::hasText)
+                .map(entry -> entry.split("="))
+                .collect(Collectors.toMap(kv -> kv[0].trim(), kv -> Limit.parse(kv[1])));
+        this.defaultUserLimit = roleLimits.getOrDefault("ROLE_USER", Limit.parse("5/10"));
+        this.roomLimit = Limit.parse(roomLimit);
+        this.idleEvictNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictMillis);
+        this.userRejected = meterRegistry.counter("chat.rate-limit.rejected", "scope", Scope.USER.name());
+        this.roomRejected = meterRegistry.counter("chat.rate-limit.rejected", "scope", Scope.ROOM.name());
+    }
+
+    /**
+     * 전송 가능하면 null, 제한에 걸리면 걸린 범위를 반환합니다.
+     * 사용자 한도를 먼저 확인해 한 사용자의 도배가 방 전체 한도를 소모하지 않도록 하고,
+     * 방 한도에 걸리면 이미 쓴 사용자 토큰은 되돌려 보내지 못한 메시지가 사용자 한도를 쓰지 않게 합니다.
+     *
+     * @throws IllegalArgumentException roomId 가 null
+     */
+    public Scope tryAcquire(User user, Long roomId) {
+        if (roomId == null) throw new IllegalArgumentException("roomId is required");
+        final long now = System.nanoTime();
+
+        final Limit userLimit = limitOf(user);
+        final Bucket userBucket = userBuckets.computeIfAbsent(user.getId(), k -> new Bucket());
+        if (!userBucket.tryAcquire(now, userLimit)) {
+            userRejected.increment();
+            return Scope.USER;
+        }
+
+        if (!roomBuckets.computeIfAbsent(roomId, k -> new Bucket()).tryAcquire(now, roomLimit)) {
+            userBucket.refund(userLimit);
+            roomRejected.increment();
+            return Scope.ROOM;
+        }
+        return null;
+    }
+
+    /**
+     * 가득 찬 지 idle-evict 이상 지난 버킷 제거 (다시 만들어도 가득 찬 상태라 동작 차이 없음)
+     */
+    @Scheduled(fixedDelayString = "${app.chat.rate-limit.sweep-millis:60000}")
+    void evictIdleBuckets() {
+        final long threshold = System.nanoTime() - idleEvictNanos;
+        userBuckets.values().removeIf(bucket -> bucket.isIdleSince(threshold));
+        roomBuckets.values().removeIf(bucket -> bucket.isIdleSince(threshold));
+    }
+
+    private Limit limitOf(User user) {
+        if (user.getRoles() == null) return defaultUserLimit;
+
+        return user.getRoleList().stream()
+                .map(String::trim)
+                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
+                .map(roleLimits::get)
+                .filter(Objects::nonNull)
+                .max((a, b) -> Double.compare(a.perSecond(), b.perSecond()))
+                .orElse(defaultUserLimit);
+    }
+
+    private static final class Bucket {
+        // theoretical arrival time: 버킷이 가득 차는 시각 (nanoTime 기준)
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+
+        boolean tryAcquire(long now, Limit limit) {
+            final long interval = limit.intervalNanos();
+            final long window = interval * limit.burst();
+            while (true) {
+                final long current = tat.get();
+                final long base = current == Long.MIN_VALUE ? now : Math.max(current, now);
+                final long next = base + interval;
+                if (next - now > window) return false;
+                if (tat.compareAndSet(current, next)) return true;
+            }
+        }
+
+        void refund(Limit limit) {
+            tat.addAndGet(-limit.intervalNanos());
+        }
+
+        boolean isIdleSince(long threshold) {
+            final long current = tat.get();
+            return current == Long.MIN_VALUE || current - threshold < 0;
+        }
+    }
+}
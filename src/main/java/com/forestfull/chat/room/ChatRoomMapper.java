@@ -20,6 +20,24 @@ public interface ChatRoomMapper {
 
     List<ChatDTO.Participant> findParticipants(@Param("roomId") Long roomId);
 
+    List<ChatDTO.Participant> findAllParticipants();
+
+    List<ChatDTO.RoomParticipantUpdate> countParticipantsByRoom();
+
+    /**
+     * 참여자 목록 version 을 count 만큼 올림 (같은 트랜잭션의 findRosterVersion 으로 올린 값을 읽음)
+     */
+    int incrementRosterVersion(@Param("roomId") Long roomId, @Param("count") int count);
+
+    Long findRosterVersion(@Param("roomId") Long roomId);
+
+    /**
+     * 방별 참여자 목록 version (participants 는 비어 있음)
+     */
+    List<ChatDTO.ParticipantSnapshot> findRosterVersions();
+
+    ChatDTO.Participant findMemberAsParticipant(@Param("roomId") Long roomId, @Param("memberId") Long memberId);
+
     boolean isUserInRoom(@Param("roomId") Long roomId, @Param("memberId") Long memberId);
 
     int addParticipant(@Param("roomId") Long roomId,
@@ -27,4 +45,8 @@ public interface ChatRoomMapper {
 
     int removeParticipant(@Param("roomId") Long roomId,
                           @Param("memberId") Long memberId);
+
+    List<ChatDTO.Participant> lockParticipants(@Param("participants") List<ChatDTO.Participant> participants);
+
+    int removeParticipants(@Param("participants") List<ChatDTO.Participant> participants);
 }
\ No newline at end of file
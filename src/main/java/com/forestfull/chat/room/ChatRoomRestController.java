@@ -1,10 +1,17 @@
 package com.forestfull.chat.room;
 
 import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageBroadcaster;
 import com.forestfull.chat.message.ChatMessageService;
+import com.forestfull.chat.message.EncodedMessage;
+import com.forestfull.chat.unread.UnreadTracker;
+import com.forestfull.domain.User;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -15,38 +22,43 @@ import java.util.List;
 public class ChatRoomRestController {
 
     private static final int RECENT_MESSAGE_LIMIT = 50;
+    private static final int MAX_HISTORY_LIMIT = 100;
 
     private final ChatRoomService chatRoomService;
     private final ChatMessageService chatMessageService;
-    private final ParticipantService participantService;
+    private final ChatMessageBroadcaster chatMessageBroadcaster;
+    private final UnreadTracker unreadTracker;
 
     /**
-     * GET /api/chat/rooms: 채팅방 목록 및 실시간 인원수 조회
+     * GET /api/chat/rooms: 채팅방 목록 및 인원수 조회
+     * 캐시된 목록의 ETag 가 If-None-Match 와 같으면 304 를 반환합니다.
      */
     @GetMapping
-    public ResponseEntity<List<ChatDTO.Room>> getRooms() {
-
-        // 1. 모든 ChatRoom 엔티티 조회 (DB 접근)
-        List<ChatDTO.Room> rooms = chatRoomService.getAllRooms(); // ChatRoom 엔티티 반환 가정
-
-        // 2. ChatDTO.Room DTO로 변환하면서 실시간 인원 정보 추가
-        List<ChatDTO.Room> roomDtos = rooms.stream()
-                .map(room -> {
-                    // 💡 a. 실시간 인원수 조회
-                    int count = participantService.getParticipantCount(room.getId());
-                    // 💡 b. DTO로 변환 및 인원수 설정
-                    return ChatDTO.Room.builder()
-                            .id(room.getId())
-                            .name(room.getName())
-                            .createdBy(room.getCreatedBy()) // DTO의 필드 타입에 맞춰 설정
-                            .createdAt(room.getCreatedAt())
-                            .updatedAt(room.getUpdatedAt())
-                            .participantsCount(count) // 인원수 설정
-                            .build();
-                })
-                .toList();
-
-        return ResponseEntity.ok(roomDtos);
+    public ResponseEntity<List<ChatDTO.Room>> getRooms(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        RoomListCache.RoomList roomList = chatRoomService.getRoomList();
+
+        if (roomList.etag().equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(roomList.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(roomList.etag())
+                .cacheControl(CacheControl.noCache())
+                .body(roomList.rooms());
+    }
+
+    /**
+     * GET /api/chat/rooms/unread: 참여 중인 모든 방의 안 읽은 메시지 수 (로비 배지, 이후 변경은 /user/queue/unread)
+     */
+    @GetMapping("/unread")
+    public ResponseEntity<List<ChatDTO.UnreadCount>> getUnreadCounts(@AuthenticationPrincipal User user) {
+        if (user == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(unreadTracker.getUnreadCounts(user.getId()));
     }
 
     @GetMapping("/{roomId}")
@@ -79,9 +91,70 @@ public class ChatRoomRestController {
         return ResponseEntity.ok(chatRoomService.getParticipants(roomId));
     }
 
+    /**
+     * GET /api/chat/rooms/{roomId}/participants/snapshot: 참여자 delta 구독 전 초기 동기화 / version 불일치 시 재동기화
+     */
+    @GetMapping("/{roomId}/participants/snapshot")
+    public ResponseEntity<ChatDTO.ParticipantSnapshot> getParticipantSnapshot(@PathVariable Long roomId) {
+        return ResponseEntity.ok(chatRoomService.getParticipantSnapshot(roomId));
+    }
+
+    /**
+     * GET /api/chat/rooms/{roomId}/messages/search: 방 안 메시지 검색 (두 글자 이상, cursor 로 다음 페이지)
+     */
+    @GetMapping("/{roomId}/messages/search")
+    public ResponseEntity<ChatDTO.MessagePage> searchMessages(@PathVariable Long roomId,
+                                                              @RequestParam("q") String query,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(defaultValue = "" + RECENT_MESSAGE_LIMIT) int limit) {
+        Long beforeId = null;
+        if (cursor != null) {
+            try {
+                beforeId = ChatMessageService.decodeCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        final int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        return ResponseEntity.ok(chatMessageService.searchMessages(roomId, query, beforeId, pageSize));
+    }
+
     // 🔥 추가: 최근 메시지 로드 (웹소켓 연결 직후 FE가 호출)
     @GetMapping("/{roomId}/messages")
-    public ResponseEntity<List<ChatDTO.Message>> getRecentMessages(@PathVariable Long roomId) {
+    public ResponseEntity<List<EncodedMessage>> getRecentMessages(@PathVariable Long roomId) {
         return ResponseEntity.ok(chatMessageService.getRecentMessages(roomId, RECENT_MESSAGE_LIMIT));
     }
-}
\ No newline at end of file
+
+    /**
+     * GET /api/chat/rooms/{roomId}/messages/history: 이전 메시지 로드 (keyset 페이지네이션)
+     * cursor(이전 응답의 nextCursor) 또는 before(메시지 id) 중 하나로 시작 지점을 지정합니다.
+     */
+    @GetMapping("/{roomId}/messages/history")
+    public ResponseEntity<ChatDTO.MessagePage> getMessageHistory(@PathVariable Long roomId,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Long before,
+                                                                 @RequestParam(defaultValue = "" + RECENT_MESSAGE_LIMIT) int limit) {
+        Long beforeId = before;
+        if (cursor != null) {
+            try {
+                beforeId = ChatMessageService.decodeCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        final int pageSize = Math.max(1, Math.min(limit, MAX_HISTORY_LIMIT));
+        return ResponseEntity.ok(chatMessageService.getMessagesBefore(roomId, beforeId, pageSize));
+    }
+
+    /**
+     * GET /api/chat/rooms/{roomId}/messages/resume: 재접속 시 마지막으로 받은 seq 이후 메시지만 조회
+     */
+    @GetMapping("/{roomId}/messages/resume")
+    public ResponseEntity<ChatDTO.ResumeResult> resumeMessages(@PathVariable Long roomId,
+                                                               @RequestParam(required = false) Long epoch,
+                                                               @RequestParam long afterSeq) {
+        return ResponseEntity.ok(chatMessageBroadcaster.resume(roomId, epoch, afterSeq));
+    }
+}
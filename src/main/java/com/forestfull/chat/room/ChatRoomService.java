@@ -1,14 +1,19 @@
 package com.forestfull.chat.room;
 
 import com.forestfull.chat.ChatDTO;
+import com.forestfull.common.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -17,29 +22,24 @@ public class ChatRoomService {
 
     private final ChatRoomMapper chatRoomMapper;
     private final ParticipantService participantService;
+    private final RoomRosterIndex roomRosterIndex;
+    private final RoomListCache roomListCache;
+
+    // 커밋 전인 입장 (같은 회원의 동시 입장 방지)
+    private final Set<ParticipantKey> entering = ConcurrentHashMap.newKeySet();
 
     /**
-     * 모든 방 목록을 조회하고 실시간 인원수를 포함하여 반환합니다.
-     * (클라이언트 요구사항에 따라 List<Participant>에 의존)
+     * 모든 방 목록과 실시간 인원수를 반환합니다. (방 목록은 캐시, 인원수는 ParticipantService 값, 반환된 Room 은 공유되므로 수정하지 말 것)
      */
-    @Transactional(readOnly = true)
-    public List<ChatDTO.Room> getAllRooms() {
-        List<ChatDTO.Room> rooms = chatRoomMapper.findAllRooms();
-
-        // 💡 참여자 목록을 DB에서 조회하여 설정 (성능 이슈 가능성 인지)
-        return rooms.stream()
-                .peek(room -> {
-                    List<ChatDTO.Participant> participants = chatRoomMapper.findParticipants(room.getId());
-                    room.setParticipantList(participants);
-                })
-                .collect(Collectors.toList());
+    public RoomListCache.RoomList getRoomList() {
+        return roomListCache.get(participantService::getParticipantCount);
     }
 
     @Transactional(readOnly = true)
     public ChatDTO.Room findRoomById(Long roomId) {
         ChatDTO.Room room = chatRoomMapper.findRoomById(roomId);
         if (room != null) {
-            room.setParticipantList(chatRoomMapper.findParticipants(roomId));
+            room.setParticipantList(roomRosterIndex.getParticipants(roomId));
         }
         return room;
     }
@@ -54,8 +54,12 @@ public class ChatRoomService {
         chatRoomMapper.createRoom(roomName, memberId);
         log.info("ROOM CREATED id={} name={} by {}", room.getId(), room.getName(), memberId);
 
-        // 🟢 ParticipantService에 새로운 방 초기화 위임
-        participantService.initializeRoomCount(room.getId());
+        // 🟢 ParticipantService에 새로운 방 초기화 위임 (메모리 상태는 커밋 후에)
+        TransactionHooks.afterCommit(() -> {
+            participantService.initializeRoomCount(room.getId());
+            roomRosterIndex.initializeRoom(room.getId());
+        });
+        roomListCache.invalidate();
         room.setParticipantList(Collections.emptyList());
 
         return room;
@@ -67,31 +71,70 @@ public class ChatRoomService {
         int affected = chatRoomMapper.deleteRoom(roomId);
 
         if (affected > 0) {
-            // 🟢 ParticipantService에 카운터 제거 위임
-            participantService.removeRoomCount(roomId);
+            // 🟢 ParticipantService에 카운터 제거 위임 (메모리 상태는 커밋 후에)
+            TransactionHooks.afterCommit(() -> {
+                participantService.removeRoomCount(roomId);
+                roomRosterIndex.removeRoom(roomId);
+            });
+            roomListCache.invalidate();
         }
         return affected > 0;
     }
 
-    @Transactional(readOnly = true)
     public List<ChatDTO.Participant> getParticipants(Long roomId) {
-        return chatRoomMapper.findParticipants(roomId);
+        return roomRosterIndex.getParticipants(roomId);
     }
 
-    /** 입장 처리 */
+    public List<ChatDTO.Participant> getAllParticipants() {
+        return roomRosterIndex.getAllParticipants();
+    }
+
+    public boolean isUserInRoom(Long roomId, Long memberId) {
+        return roomRosterIndex.contains(roomId, memberId);
+    }
+
+    /**
+     * 참여자 스냅샷: 목록과 그 목록이 반영한 version 을 함께 읽으므로, 이후 delta 를 version 으로 그대로 이어 적용할 수 있습니다.
+     */
+    public ChatDTO.ParticipantSnapshot getParticipantSnapshot(Long roomId) {
+        return roomRosterIndex.snapshot(roomId);
+    }
+
+    /** 입장 처리 (참여자 정보가 없는 호출 경로: 회원 정보로 참여자 정보를 만듦) */
     @Transactional
     public boolean enterRoom(Long roomId, Long memberId) {
-        boolean exists = chatRoomMapper.isUserInRoom(roomId, memberId);
-        if (exists) {
+        if (roomRosterIndex.contains(roomId, memberId)) {
+            log.debug("User {} already in room {}", memberId, roomId);
+            return false;
+        }
+
+        ChatDTO.Participant participant = chatRoomMapper.findMemberAsParticipant(roomId, memberId);
+        return participant != null && enterRoom(participant);
+    }
+
+    /** 입장 처리 */
+    @Transactional
+    public boolean enterRoom(ChatDTO.Participant participant) {
+        Long roomId = participant.getRoomId();
+        Long memberId = participant.getUserId();
+
+        // 같은 회원의 동시 입장은 한 번만 통과 (인덱스는 커밋 후에 바뀌므로 트랜잭션이 끝날 때까지 따로 잡아 둠)
+        final ParticipantKey key = new ParticipantKey(roomId, memberId);
+        if (roomRosterIndex.contains(roomId, memberId) || !entering.add(key)) {
             log.debug("User {} already in room {}", memberId, roomId);
             return false;
         }
+        TransactionHooks.afterCompletion(() -> entering.remove(key));
 
         int res = chatRoomMapper.addParticipant(roomId, memberId);
         if (res > 0) {
             log.info("JOIN room={} member={} result={}", roomId, memberId, res);
-            // 🟢 ParticipantService에 인원 증가 및 브로드캐스팅 위임
-            participantService.incrementParticipantCount(roomId);
+            final ChatDTO.ParticipantDelta delta = delta(roomId, nextRosterVersion(roomId, 1), ChatDTO.ParticipantDelta.Type.ADDED, participant);
+            // 🟢 ParticipantService에 인원 증가 및 브로드캐스팅 위임 (롤백되면 메모리 상태는 그대로)
+            TransactionHooks.afterCommit(() -> {
+                participantService.broadcastParticipantDelta(delta);
+                participantService.incrementParticipantCount(roomId);
+            });
         }
         return res > 0;
     }
@@ -99,11 +142,83 @@ public class ChatRoomService {
     /** 퇴장 처리 */
     @Transactional
     public boolean leaveRoom(Long roomId, Long memberId) {
+        ChatDTO.Participant participant = roomRosterIndex.get(roomId, memberId);
+        if (participant == null) {
+            log.debug("User {} not in room {}", memberId, roomId);
+            return false;
+        }
+
         int res = chatRoomMapper.removeParticipant(roomId, memberId);
         if (res > 0) {
+            final ChatDTO.ParticipantDelta delta = delta(roomId, nextRosterVersion(roomId, 1), ChatDTO.ParticipantDelta.Type.REMOVED, participant);
             // 🟢 ParticipantService에 인원 감소 및 브로드캐스팅 위임
-            participantService.decrementParticipantCount(roomId);
+            TransactionHooks.afterCommit(() -> {
+                participantService.broadcastParticipantDelta(delta);
+                participantService.decrementParticipantCount(roomId);
+            });
         }
         return res > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * 여러 참여자를 DELETE 한 번으로 퇴장 처리 (세션 종료 후 자동 퇴장)
+     * 지울 행을 먼저 잠가 실제로 빠지는 참여자만 골라내고, 메모리 상태는 커밋 후에 바꿉니다.
+     * @return 실제로 방에서 빠진 참여자 (인덱스의 참여자 정보). 커밋 후에 채워지므로 호출한 쪽에서는 완전한 목록을 받음
+     */
+    @Transactional
+    public List<ChatDTO.Participant> leaveRooms(List<ChatDTO.Participant> leaving) {
+        List<ChatDTO.Participant> left = new ArrayList<>();
+        if (leaving.isEmpty()) return left;
+
+        List<ChatDTO.Participant> present = chatRoomMapper.lockParticipants(leaving);
+        if (present.isEmpty()) return left;
+
+        chatRoomMapper.removeParticipants(present);
+
+        // 방마다 빠진 인원만큼 version 을 한 번에 올리고 순서대로 나눠 줌
+        Map<Long, List<ChatDTO.Participant>> byRoom = new LinkedHashMap<>();
+        for (ChatDTO.Participant p : present) {
+            ChatDTO.Participant participant = roomRosterIndex.get(p.getRoomId(), p.getUserId());
+            byRoom.computeIfAbsent(p.getRoomId(), k -> new ArrayList<>()).add(participant != null ? participant : p);
+        }
+        List<ChatDTO.ParticipantDelta> deltas = new ArrayList<>();
+        byRoom.forEach((roomId, participants) -> {
+            long version = nextRosterVersion(roomId, participants.size()) - participants.size();
+            for (ChatDTO.Participant participant : participants) {
+                deltas.add(delta(roomId, ++version, ChatDTO.ParticipantDelta.Type.REMOVED, participant));
+            }
+        });
+
+        TransactionHooks.afterCommit(() -> {
+            for (ChatDTO.ParticipantDelta delta : deltas) {
+                participantService.broadcastParticipantDelta(delta);
+                participantService.decrementParticipantCount(delta.getRoomId());
+                left.add(delta.getParticipant());
+            }
+            log.info("LEAVE batch size={}", left.size());
+        });
+        return left;
+    }
+
+    /**
+     * 방 행을 잠그고 참여자 목록 version 을 count 만큼 올린 뒤 마지막 값을 반환 (커밋 순서 = version 순서)
+     */
+    private long nextRosterVersion(Long roomId, int count) {
+        chatRoomMapper.incrementRosterVersion(roomId, count);
+        Long version = chatRoomMapper.findRosterVersion(roomId);
+        if (version == null) throw new IllegalStateException("Room not found: " + roomId);
+        return version;
+    }
+
+    private static ChatDTO.ParticipantDelta delta(Long roomId, long version, ChatDTO.ParticipantDelta.Type type, ChatDTO.Participant participant) {
+        return ChatDTO.ParticipantDelta.builder()
+                .roomId(roomId)
+                .version(version)
+                .type(type)
+                .participant(participant)
+                .build();
+    }
+
+    private record ParticipantKey(Long roomId, Long memberId) {
+    }
+}
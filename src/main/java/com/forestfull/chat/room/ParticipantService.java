@@ -1,13 +1,30 @@
 package com.forestfull.chat.room;
 
 import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.cluster.ClusterBus;
+import com.forestfull.chat.cluster.ClusterEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.user.SimpSubscription;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
@@ -15,11 +32,114 @@ import java.util.concurrent.ConcurrentMap;
 public class ParticipantService {
 
     private final SimpMessageSendingOperations messagingTemplate;
+    private final ClusterBus clusterBus;
+    private final ChatRoomMapper chatRoomMapper;
+    private final SimpUserRegistry simpUserRegistry;
+    private final RoomListCache roomListCache;
+    private final RoomRosterIndex roomRosterIndex;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.participants.gap-timeout-millis:2000}")
+    private long gapTimeoutMillis;
 
     // 실시간 인원 카운트 저장소 (key: roomId, value: count)
     private final ConcurrentMap<Long, Integer> participantCounts = new ConcurrentHashMap<>();
 
     private static final String PARTICIPANTS_TOPIC = "/topic/rooms/participants";
+    private static final String ROOM_TOPIC_PREFIX = "/topic/rooms/";
+
+    // 다음 tick 에 인원수를 보낼 방 (key: roomId)
+    private final Set<Long> dirtyCounts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingCountEvents = new AtomicInteger();
+
+    private DistributionSummary dbCorrections;
+    private DistributionSummary sessionCorrections;
+    private Counter countEvents;
+    private Counter countFrames;
+    private Counter countFramesSaved;
+
+    /**
+     * 재시작 직후에도 방 목록 인원수가 0 으로 보이지 않도록 GROUP BY 한 번으로 적재
+     */
+    @PostConstruct
+    void warmUp() {
+        dbCorrections = DistributionSummary.builder("chat.room.participants.reconcile.correction")
+                .description("인원수 보정 크기 (절댓값)")
+                .tag("source", "db")
+                .register(meterRegistry);
+        sessionCorrections = DistributionSummary.builder("chat.room.participants.reconcile.correction")
+                .description("인원수 보정 크기 (절댓값)")
+                .tag("source", "sessions")
+                .register(meterRegistry);
+        countEvents = meterRegistry.counter("chat.room.participants.count.events");
+        countFrames = meterRegistry.counter("chat.room.participants.count.frames");
+        countFramesSaved = meterRegistry.counter("chat.room.participants.count.frames-saved");
+
+        chatRoomMapper.countParticipantsByRoom().forEach(row -> participantCounts.put(row.getRoomId(), row.getCount()));
+        log.info("Participant counts warmed for {} rooms", participantCounts.size());
+    }
+
+    /**
+     * 🔹 인원수 보정 (주기마다 방별 목표값을 한 번만 계산해 한 번만 교체)
+     * 목표값 = DB(chat_participant) 인원수, 단 이 노드에서 방 토픽을 구독 중인 사용자 수가 더 크면 그 수
+     * (다른 노드 세션은 보이지 않으므로 접속 세션 수는 하한으로만 사용)
+     * 두 기준을 따로 적용하면 DB 가 낮추고 세션이 다시 올리며 매 주기 값이 흔들리므로 합친 값 하나로만 비교합니다.
+     * 조회 전 값과 지금 값이 같을 때만 교체해, 조회 중 들어온 증감을 덮어쓰지 않습니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.participants.reconcile-millis:60000}")
+    void reconcile() {
+        final Map<Long, Integer> before = new HashMap<>(participantCounts);
+        final Map<Long, Integer> fromDb = new HashMap<>();
+        chatRoomMapper.countParticipantsByRoom().forEach(row -> fromDb.put(row.getRoomId(), row.getCount()));
+
+        // DB 에 행이 없는 방은 0 명
+        before.keySet().forEach(roomId -> fromDb.putIfAbsent(roomId, 0));
+        final Map<Long, Integer> live = liveSubscribers();
+
+        fromDb.forEach((roomId, dbCount) -> {
+            final int liveCount = live.getOrDefault(roomId, 0);
+            final int target = Math.max(dbCount, liveCount);
+            final Integer current = before.get(roomId);
+            if (current != null && current == target) return;
+
+            final boolean replaced = current == null
+                    ? participantCounts.putIfAbsent(roomId, target) == null
+                    : participantCounts.replace(roomId, current, target);
+            if (!replaced) return;
+
+            final int correction = Math.abs(target - (current == null ? 0 : current));
+            final boolean bySessions = liveCount > dbCount;
+            (bySessions ? sessionCorrections : dbCorrections).record(correction);
+            log.warn("Participant count drift fixed from {}: room={} {} -> {}", bySessions ? "sessions" : "DB", roomId, current, target);
+            broadcastParticipantCount(roomId);
+        });
+    }
+
+    /**
+     * 이 노드에서 /topic/rooms/{roomId} 를 구독 중인 사용자 수 (key: roomId)
+     */
+    private Map<Long, Integer> liveSubscribers() {
+        final Map<Long, Set<String>> users = new HashMap<>();
+        simpUserRegistry.getUsers().forEach(user -> user.getSessions().forEach(session -> {
+            for (SimpSubscription subscription : session.getSubscriptions()) {
+                final Long roomId = roomIdOf(subscription.getDestination());
+                if (roomId != null) users.computeIfAbsent(roomId, k -> new HashSet<>()).add(user.getName());
+            }
+        }));
+
+        final Map<Long, Integer> counts = new HashMap<>();
+        users.forEach((roomId, names) -> counts.put(roomId, names.size()));
+        return counts;
+    }
+
+    private static Long roomIdOf(String destination) {
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) return null;
+        try {
+            return Long.valueOf(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null; // /topic/rooms/participants, /topic/rooms/{id}/participants 등
+        }
+    }
 
     /**
      * 🟢 추가된 함수: 특정 방의 현재 인원수를 조회합니다.
@@ -47,31 +167,89 @@ public class ParticipantService {
      * 인원수 증가 및 브로드캐스팅
      */
     public void incrementParticipantCount(Long roomId) {
-        // 메모리 카운터 증가 및 현재 인원수 가져오기
-        Integer newCount = participantCounts.compute(roomId, (k, v) -> v == null ? 1 : v + 1);
-        broadcastParticipantCount(roomId, newCount);
+        applyCountDelta(roomId, 1);
+        clusterBus.publish(new ClusterEvent.ParticipantCountDelta(roomId, 1));
     }
 
     /**
      * 인원수 감소 및 브로드캐스팅
      */
     public void decrementParticipantCount(Long roomId) {
-        // 메모리 카운터 감소 및 현재 인원수 가져오기 (0 미만 방지)
-        Integer newCount = participantCounts.compute(roomId, (k, v) -> (v == null || v <= 0) ? 0 : v - 1);
-        broadcastParticipantCount(roomId, newCount);
+        applyCountDelta(roomId, -1);
+        clusterBus.publish(new ClusterEvent.ParticipantCountDelta(roomId, -1));
     }
 
     /**
-     * 웹소켓으로 인원수 업데이트 메시지 전송
+     * 메모리 카운터에 증감을 반영하고 이 노드의 구독자에게 브로드캐스팅 (다른 노드에서 온 증감도 여기로 들어옴)
      */
-    private void broadcastParticipantCount(Long roomId, int count) {
-        // ChatDTO.RoomParticipantUpdate DTO가 필요함
-        ChatDTO.RoomParticipantUpdate update = ChatDTO.RoomParticipantUpdate.builder()
-                .roomId(roomId)
-                .count(count)
-                .build();
-
-        messagingTemplate.convertAndSend(PARTICIPANTS_TOPIC, update);
-        log.debug("Broadcasted participant update: Room {} count {}", roomId, count);
+    public void applyCountDelta(Long roomId, int delta) {
+        // 0 미만 방지
+        participantCounts.compute(roomId, (k, v) -> Math.max(0, (v == null ? 0 : v) + delta));
+        broadcastParticipantCount(roomId);
+    }
+
+    /**
+     * 참여자 변경을 이 노드 인덱스에 반영하고, 모든 노드의 /topic/rooms/{roomId}/participants 구독자에게 전송
+     * (version 은 호출한 쪽이 커밋한 트랜잭션에서 DB 로 발급받은 값)
+     */
+    public void broadcastParticipantDelta(ChatDTO.ParticipantDelta delta) {
+        deliverParticipantDelta(delta);
+        clusterBus.publish(new ClusterEvent.RoomParticipantDelta(delta));
+    }
+
+    /**
+     * 이 노드의 인덱스에 version 순서대로 반영하고 이 노드의 구독자에게만 전송 (다른 노드에서 온 변경도 여기로 들어옴)
+     */
+    public void deliverParticipantDelta(ChatDTO.ParticipantDelta delta) {
+        roomRosterIndex.apply(delta, this::sendParticipantDelta);
+    }
+
+    /**
+     * 순서가 바뀌어 보류된 변경이 gap-timeout 동안 채워지지 않으면(유실) 그 방의 참여자 목록을 DB 에서 다시 읽음
+     */
+    @Scheduled(fixedDelayString = "${app.chat.participants.gap-check-millis:1000}")
+    void resyncStalledRosters() {
+        roomRosterIndex.resyncStalled(gapTimeoutMillis, this::sendParticipantDelta);
+    }
+
+    // 인덱스의 방 모니터 안에서 호출되므로 version 순서대로 전송됨
+    private void sendParticipantDelta(ChatDTO.ParticipantDelta delta) {
+        messagingTemplate.convertAndSend("/topic/rooms/" + delta.getRoomId() + "/participants", delta);
+    }
+
+    /**
+     * 인원수 변경 표시만 하고 전송은 다음 tick 에 모아서 처리
+     */
+    private void broadcastParticipantCount(Long roomId) {
+        // 입장/퇴장(다른 노드 포함), 보정 모두 여기를 거치므로 로비 목록의 인원수도 함께 무효화
+        roomListCache.invalidateCounts();
+        countEvents.increment();
+        pendingCountEvents.incrementAndGet();
+        dirtyCounts.add(roomId);
+    }
+
+    /**
+     * 🔹 tick 마다 바뀐 방들의 최신 인원수를 ChatDTO.RoomParticipantUpdate 목록 한 프레임으로 전송
+     * 대량 입장 시에도 로비 클라이언트는 tick 당 한 프레임만 받습니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.participants.broadcast-tick-millis:250}")
+    void flushParticipantCounts() {
+        if (dirtyCounts.isEmpty()) return;
+
+        final List<ChatDTO.RoomParticipantUpdate> updates = new ArrayList<>();
+        for (Long roomId : dirtyCounts) {
+            if (!dirtyCounts.remove(roomId)) continue;
+            updates.add(ChatDTO.RoomParticipantUpdate.builder()
+                    .roomId(roomId)
+                    .count(getParticipantCount(roomId))
+                    .build());
+        }
+        if (updates.isEmpty()) return;
+
+        final int events = pendingCountEvents.getAndSet(0);
+        messagingTemplate.convertAndSend(PARTICIPANTS_TOPIC, updates);
+        countFrames.increment();
+        if (events > 1) countFramesSaved.increment(events - 1);
+        log.debug("Broadcasted participant counts: rooms={} events={}", updates.size(), events);
     }
 }
\ No newline at end of file
@@ -0,0 +1,131 @@
+package com.forestfull.chat.room;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.forestfull.chat.ChatDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 🔹 로비 방 목록 캐시
+ * 방 목록은 DB 에서 한 번 읽어 두고 방 생성/삭제 시에만 다시 읽습니다.
+ * 인원수는 DB 집계가 아니라 ParticipantService 의 실시간 인원수를 목록에 덮어쓰며, 인원수가 바뀌면 덮어쓴 목록만 다시 만듭니다.
+ * ETag 는 응답으로 나가는 목록(인원수 포함)을 직렬화한 바이트의 SHA-256 이므로, 노드가 달라도 같은 목록이면 같은 값입니다.
+ */
+@Component
+@RequiredArgsConstructor
+public class RoomListCache {
+
+    public record RoomList(long roomGeneration, long countGeneration, List<ChatDTO.Room> rooms, String etag) {
+    }
+
+    private record DbRooms(long generation, List<ChatDTO.Room> rooms, Set<Long> ids) {
+    }
+
+    private final ChatRoomMapper chatRoomMapper;
+    private final ObjectMapper objectMapper;
+
+    // 방 생성/삭제 시 증가 (DB 재조회)
+    private final AtomicLong roomGeneration = new AtomicLong();
+    // 인원수 변경 시 증가 (인원수만 다시 덮어씀)
+    private final AtomicLong countGeneration = new AtomicLong();
+    private volatile DbRooms dbRooms;
+    private volatile RoomList cached;
+
+    /**
+     * @param liveCount 방 id → 현재 인원수
+     */
+    public RoomList get(ToIntFunction<Long> liveCount) {
+        final RoomList current = cached;
+        final long roomGen = roomGeneration.get();
+        final long countGen = countGeneration.get();
+        if (current != null && current.roomGeneration() == roomGen && current.countGeneration() == countGen) return current;
+
+        // 조회 중 무효화되면 세대가 달라져 다음 호출에서 다시 만듦
+        final List<ChatDTO.Room> rooms = overlay(roomsOf(roomGen), liveCount);
+        final RoomList fresh = new RoomList(roomGen, countGen, rooms, etagOf(rooms));
+        cached = fresh;
+        return fresh;
+    }
+
+    /**
+     * 이 노드가 알고 있는 방 목록에 있는지 (다른 노드에서 방금 만든 방은 아직 없을 수 있음)
+     */
+    public boolean contains(Long roomId) {
+        return dbRoomsOf(roomGeneration.get()).ids().contains(roomId);
+    }
+
+    /**
+     * 방 생성/삭제 시 호출. 트랜잭션 안에서 호출되면 커밋 후에 한 번 더 무효화해, 커밋 전 값을 읽어 간 재적재를 버립니다.
+     */
+    public void invalidate() {
+        roomGeneration.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    roomGeneration.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * 인원수 변경 시 호출 (DB 는 다시 읽지 않음)
+     */
+    public void invalidateCounts() {
+        countGeneration.incrementAndGet();
+    }
+
+    private List<ChatDTO.Room> roomsOf(long roomGen) {
+        return dbRoomsOf(roomGen).rooms();
+    }
+
+    private DbRooms dbRoomsOf(long roomGen) {
+        final DbRooms current = dbRooms;
+        if (current != null && current.generation() == roomGen) return current;
+
+        final List<ChatDTO.Room> rooms = List.copyOf(chatRoomMapper.findAllRooms());
+        final DbRooms fresh = new DbRooms(roomGen, rooms, rooms.stream().map(ChatDTO.Room::getId).collect(Collectors.toUnmodifiableSet()));
+        dbRooms = fresh;
+        return fresh;
+    }
+
+    // DB 목록은 공유되므로 복사본에 인원수를 씀
+    private static List<ChatDTO.Room> overlay(List<ChatDTO.Room> rooms, ToIntFunction<Long> liveCount) {
+        final List<ChatDTO.Room> result = new ArrayList<>(rooms.size());
+        for (ChatDTO.Room room : rooms) {
+            result.add(ChatDTO.Room.builder()
+                    .id(room.getId())
+                    .name(room.getName())
+                    .maker(room.getMaker())
+                    .createdBy(room.getCreatedBy())
+                    .createdAt(room.getCreatedAt())
+                    .updatedAt(room.getUpdatedAt())
+                    .participantsCount(liveCount.applyAsInt(room.getId()))
+                    .build());
+        }
+        return List.copyOf(result);
+    }
+
+    private String etagOf(List<ChatDTO.Room> rooms) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(rooms));
+            return "\"" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.forestfull.chat.room;
+
+import com.forestfull.chat.ChatDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * 🔹 방별 참여자 인덱스 (roomId → memberId → 참여자 정보)
+ * 시작 시 chat_participant 전체를 한 번 읽어 채우고, 이후에는 입장/퇴장 변경(ParticipantDelta)으로만 갱신합니다.
+ * 참여 여부 확인과 참여자 목록 조회는 DB 를 거치지 않고 여기서 처리합니다.
+ * 변경의 version 은 DB(chat_room.roster_version)에서 발급되므로 모든 노드가 같은 순서로 적용하며,
+ * 순서가 뒤바뀌어 도착한 변경은 앞 version 이 올 때까지 보류하고, gap 이 오래 남으면 DB 에서 그 방을 다시 읽습니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoomRosterIndex {
+
+    private final ChatRoomMapper chatRoomMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // key: roomId
+    private final ConcurrentMap<Long, Roster> rosters = new ConcurrentHashMap<>();
+
+    private Counter resyncCounter;
+
+    @PostConstruct
+    void warmUp() {
+        // 같은 트랜잭션(같은 읽기 시점)에서 version 과 참여자를 함께 읽음
+        transactionTemplate.executeWithoutResult(status -> {
+            chatRoomMapper.findRosterVersions().forEach(v -> rosters.computeIfAbsent(v.getRoomId(), Roster::new).version = v.getVersion());
+            final List<ChatDTO.Participant> all = chatRoomMapper.findAllParticipants();
+            all.forEach(p -> rosters.computeIfAbsent(p.getRoomId(), Roster::new).members.put(p.getUserId(), p));
+            log.info("Room roster index warmed: rooms={} participants={}", rosters.size(), all.size());
+        });
+
+        resyncCounter = meterRegistry.counter("chat.room.roster.resync");
+        Gauge.builder("chat.room.roster.participants", rosters, r -> r.values().stream().mapToInt(roster -> roster.members.size()).sum())
+                .register(meterRegistry);
+    }
+
+    public boolean contains(Long roomId, Long memberId) {
+        final Roster roster = rosters.get(roomId);
+        return roster != null && memberId != null && roster.members.containsKey(memberId);
+    }
+
+    public void initializeRoom(Long roomId) {
+        if (roomId != null) rosters.putIfAbsent(roomId, new Roster(roomId));
+    }
+
+    public void removeRoom(Long roomId) {
+        rosters.remove(roomId);
+    }
+
+    public ChatDTO.Participant get(Long roomId, Long memberId) {
+        final Roster roster = rosters.get(roomId);
+        return roster == null || memberId == null ? null : roster.members.get(memberId);
+    }
+
+    public List<ChatDTO.Participant> getParticipants(Long roomId) {
+        final Roster roster = rosters.get(roomId);
+        return roster == null ? new ArrayList<>() : new ArrayList<>(roster.members.values());
+    }
+
+    /**
+     * 참여자 목록과 그 목록이 반영한 마지막 version (같은 모니터 안에서 읽어 항상 서로 맞음)
+     */
+    public ChatDTO.ParticipantSnapshot snapshot(Long roomId) {
+        final Roster roster = rosters.get(roomId);
+        if (roster == null) {
+            return ChatDTO.ParticipantSnapshot.builder().roomId(roomId).version(0).participants(new ArrayList<>()).build();
+        }
+        synchronized (roster) {
+            return ChatDTO.ParticipantSnapshot.builder()
+                    .roomId(roomId)
+                    .version(roster.version)
+                    .participants(new ArrayList<>(roster.members.values()))
+                    .build();
+        }
+    }
+
+    /**
+     * 모든 방의 참여자 (시작 시 자동 퇴장 대기를 채울 때 사용)
+     */
+    public List<ChatDTO.Participant> getAllParticipants() {
+        final List<ChatDTO.Participant> all = new ArrayList<>();
+        rosters.values().forEach(roster -> all.addAll(roster.members.values()));
+        return all;
+    }
+
+    /**
+     * 회원이 참여 중인 방 id 목록 (방 수만큼 순회)
+     */
+    public List<Long> getRoomIds(Long memberId) {
+        final List<Long> roomIds = new ArrayList<>();
+        if (memberId == null) return roomIds;
+        rosters.forEach((roomId, roster) -> {
+            if (roster.members.containsKey(memberId)) roomIds.add(roomId);
+        });
+        return roomIds;
+    }
+
+    /**
+     * 변경을 version 순서대로 반영합니다. 반영된 변경마다 방 모니터 안에서 onApplied 를 호출하므로 전송 순서도 version 순서입니다.
+     * 이미 반영한 version 은 무시하고, 앞 version 이 빠져 있으면 도착할 때까지 보류합니다.
+     */
+    public void apply(ChatDTO.ParticipantDelta delta, Consumer<ChatDTO.ParticipantDelta> onApplied) {
+        if (delta.getRoomId() == null) return;
+
+        final Roster roster = rosters.computeIfAbsent(delta.getRoomId(), Roster::new);
+        synchronized (roster) {
+            if (delta.getVersion() <= roster.version) return;
+            roster.pending.put(delta.getVersion(), delta);
+            roster.drain(onApplied);
+        }
+    }
+
+    /**
+     * gap 이 maxWaitMillis 넘게 채워지지 않은 방은 DB 에서 참여자와 version 을 다시 읽습니다. (유실된 노드 간 이벤트 복구)
+     * 다시 읽은 방은 RESYNC 변경을 onApplied 로 넘겨 클라이언트가 스냅샷을 다시 받게 합니다.
+     */
+    public void resyncStalled(long maxWaitMillis, Consumer<ChatDTO.ParticipantDelta> onApplied) {
+        final long threshold = System.currentTimeMillis() - maxWaitMillis;
+        final List<Long> stalled = rosters.values().stream()
+                .filter(roster -> roster.isStalledSince(threshold))
+                .map(roster -> roster.roomId)
+                .toList();
+
+        for (Long roomId : stalled) {
+            final ChatDTO.ParticipantSnapshot loaded = transactionTemplate.execute(status -> {
+                final Long version = chatRoomMapper.findRosterVersion(roomId);
+                if (version == null) return null;
+                return ChatDTO.ParticipantSnapshot.builder()
+                        .roomId(roomId)
+                        .version(version)
+                        .participants(chatRoomMapper.findParticipants(roomId))
+                        .build();
+            });
+            if (loaded == null) {
+                // 삭제된 방
+                rosters.remove(roomId);
+                continue;
+            }
+
+            final Roster roster = rosters.get(roomId);
+            if (roster == null) continue;
+            synchronized (roster) {
+                // 읽는 사이에 gap 이 채워졌으면 그대로 둠
+                if (loaded.getVersion() <= roster.version) continue;
+
+                // 비운 뒤 채우지 않고 교체해 모니터 없이 읽는 쪽이 빈 목록을 보지 않게 함
+                final Map<Long, ChatDTO.Participant> fresh = new HashMap<>();
+                loaded.getParticipants().forEach(p -> fresh.put(p.getUserId(), p));
+                roster.members.keySet().retainAll(fresh.keySet());
+                roster.members.putAll(fresh);
+                roster.version = loaded.getVersion();
+                roster.pending.headMap(loaded.getVersion(), true).clear();
+                onApplied.accept(ChatDTO.ParticipantDelta.builder()
+                        .roomId(roomId)
+                        .version(loaded.getVersion())
+                        .type(ChatDTO.ParticipantDelta.Type.RESYNC)
+                        .build());
+                roster.drain(onApplied);
+            }
+            resyncCounter.increment();
+            log.warn("Room roster resynced from DB: room={} version={}", roomId, loaded.getVersion());
+        }
+    }
+
+    /**
+     * 방 하나의 참여자 + 반영된 version. members 는 모니터 없이 읽고, 변경은 모니터 안에서만 합니다.
+     */
+    private static final class Roster {
+        private final Long roomId;
+        private final Map<Long, ChatDTO.Participant> members = new ConcurrentHashMap<>();
+        // 도착했지만 앞 version 이 아직 없어 보류 중인 변경 (key: version)
+        private final TreeMap<Long, ChatDTO.ParticipantDelta> pending = new TreeMap<>();
+        private long version;
+        private long waitingSince;  // 보류 중인 변경이 생긴 시각 (없으면 0)
+
+        Roster(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        private void drain(Consumer<ChatDTO.ParticipantDelta> onApplied) {
+            boolean progressed = false;
+            while (!pending.isEmpty() && pending.firstKey() == version + 1) {
+                final ChatDTO.ParticipantDelta next = pending.pollFirstEntry().getValue();
+                final ChatDTO.Participant participant = next.getParticipant();
+                if (participant != null && participant.getUserId() != null) {
+                    if (next.getType() == ChatDTO.ParticipantDelta.Type.ADDED) members.putIfAbsent(participant.getUserId(), participant);
+                    else if (next.getType() == ChatDTO.ParticipantDelta.Type.REMOVED) members.remove(participant.getUserId());
+                }
+                version = next.getVersion();
+                progressed = true;
+                onApplied.accept(next);
+            }
+            if (pending.isEmpty()) waitingSince = 0;
+            else if (progressed || waitingSince == 0) waitingSince = System.currentTimeMillis();
+        }
+
+        synchronized boolean isStalledSince(long threshold) {
+            return waitingSince != 0 && waitingSince < threshold;
+        }
+    }
+}
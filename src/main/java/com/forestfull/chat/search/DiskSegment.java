@@ -0,0 +1,232 @@
+package com.forestfull.chat.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 🔹 불변 디스크 세그먼트 (memory-mapped)
+ * 파일 구성: header(magic, version) | postings(long...) | docs((id, roomId)...) | dictionary((len, token, offset, count)...) | footer
+ * 토큰 사전만 힙에 올리고, postings 와 문서 표는 매핑된 버퍼에서 바로 읽습니다.
+ */
+final class DiskSegment implements Segment {
+
+    static final String SUFFIX = ".seg";
+
+    private static final int MAGIC = 0x43485358; // "CHSX"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int FOOTER_BYTES = 4 * 4 + 8;
+    private static final int DOC_BYTES = 16;
+
+    record TermPostings(String token, long[] ids) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int docsOffset;
+    private final int docCount;
+    private final long maxId;
+    private final String[] tokens;
+    private final int[] offsets;
+    private final int[] counts;
+
+    private DiskSegment(Path path) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final int size = buffer.capacity();
+        if (size < HEADER_BYTES + FOOTER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a search segment: " + path);
+        }
+
+        final int footer = size - FOOTER_BYTES;
+        this.docsOffset = buffer.getInt(footer);
+        this.docCount = buffer.getInt(footer + 4);
+        final int dictOffset = buffer.getInt(footer + 8);
+        final int termCount = buffer.getInt(footer + 12);
+        this.maxId = buffer.getLong(footer + 16);
+
+        this.tokens = new String[termCount];
+        this.offsets = new int[termCount];
+        this.counts = new int[termCount];
+        int position = dictOffset;
+        for (int i = 0; i < termCount; i++) {
+            final byte[] bytes = new byte[buffer.getShort(position) & 0xFFFF];
+            buffer.get(position + 2, bytes);
+            position += 2 + bytes.length;
+            tokens[i] = new String(bytes, StandardCharsets.UTF_8);
+            offsets[i] = buffer.getInt(position);
+            counts[i] = buffer.getInt(position + 4);
+            position += 8;
+        }
+    }
+
+    static DiskSegment open(Path path) throws IOException {
+        return new DiskSegment(path);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    @Override
+    public Postings postings(String token) {
+        final int index = Arrays.binarySearch(tokens, token);
+        if (index < 0) return Postings.EMPTY;
+
+        final int offset = offsets[index];
+        final int count = counts[index];
+        return new Postings() {
+            @Override
+            public int size() {
+                return count;
+            }
+
+            @Override
+            public long get(int i) {
+                return buffer.getLong(offset + i * 8);
+            }
+        };
+    }
+
+    @Override
+    public long roomOf(long messageId) {
+        int low = 0;
+        int high = docCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long id = buffer.getLong(docsOffset + mid * DOC_BYTES);
+            if (id < messageId) low = mid + 1;
+            else if (id > messageId) high = mid - 1;
+            else return buffer.getLong(docsOffset + mid * DOC_BYTES + 8);
+        }
+        return -1;
+    }
+
+    @Override
+    public int docCount() {
+        return docCount;
+    }
+
+    @Override
+    public long maxId() {
+        return maxId;
+    }
+
+    /**
+     * 토큰 순으로 모든 postings 를 돌려주는 반복자 (병합용)
+     */
+    Iterator<TermPostings> terms() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < tokens.length;
+            }
+
+            @Override
+            public TermPostings next() {
+                final Postings postings = postings(tokens[index]);
+                final long[] ids = new long[postings.size()];
+                for (int i = 0; i < ids.length; i++) ids[i] = postings.get(i);
+                return new TermPostings(tokens[index++], ids);
+            }
+        };
+    }
+
+    /**
+     * id 순으로 {id, roomId} 를 돌려주는 반복자 (병합용)
+     */
+    Iterator<long[]> docs() {
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < docCount;
+            }
+
+            @Override
+            public long[] next() {
+                final int position = docsOffset + index++ * DOC_BYTES;
+                return new long[]{buffer.getLong(position), buffer.getLong(position + 8)};
+            }
+        };
+    }
+
+    /**
+     * 임시 파일에 쓴 뒤 rename 해서, 중단되더라도 반쯤 쓰인 세그먼트가 남지 않게 합니다.
+     *
+     * @param terms 토큰 오름차순, 각 ids 는 오름차순
+     * @param docs  id 오름차순 {id, roomId}
+     */
+    static DiskSegment write(Path target, Iterator<TermPostings> terms, Iterator<long[]> docs) throws IOException {
+        final Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        final List<byte[]> dictTokens = new ArrayList<>();
+        final List<int[]> dictEntries = new ArrayList<>();
+
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            while (terms.hasNext()) {
+                final TermPostings term = terms.next();
+                if (term.ids().length == 0) continue;
+                dictTokens.add(term.token().getBytes(StandardCharsets.UTF_8));
+                dictEntries.add(new int[]{out.size(), term.ids().length});
+                for (long id : term.ids()) out.writeLong(id);
+            }
+
+            final int docsOffset = out.size();
+            int docCount = 0;
+            long maxId = 0;
+            while (docs.hasNext()) {
+                final long[] doc = docs.next();
+                out.writeLong(doc[0]);
+                out.writeLong(doc[1]);
+                maxId = Math.max(maxId, doc[0]);
+                docCount++;
+            }
+
+            final int dictOffset = out.size();
+            for (int i = 0; i < dictTokens.size(); i++) {
+                final byte[] token = dictTokens.get(i);
+                out.writeShort(token.length);
+                out.write(token);
+                out.writeInt(dictEntries.get(i)[0]);
+                out.writeInt(dictEntries.get(i)[1]);
+            }
+
+            out.writeInt(docsOffset);
+            out.writeInt(docCount);
+            out.writeInt(dictOffset);
+            out.writeInt(dictTokens.size());
+            out.writeLong(maxId);
+            if (out.size() == Integer.MAX_VALUE) throw new IOException("Search segment too large: " + target);
+            out.flush();
+        }
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        return open(target);
+    }
+}
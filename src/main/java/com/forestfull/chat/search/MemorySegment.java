@@ -0,0 +1,89 @@
+package com.forestfull.chat.search;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 🔹 새로 들어온 메시지를 담는 쓰기 세그먼트
+ * 색인 스레드 하나가 쓰고 검색 스레드들이 읽으므로 모니터로 보호합니다. flush-docs 에 도달하면 디스크 세그먼트로 내려갑니다.
+ */
+final class MemorySegment implements Segment {
+
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] sortedCopy() {
+            final long[] copy = Arrays.copyOf(values, size);
+            // write-behind 배치는 id 순서대로 오지 않을 수 있음
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+
+    private final Map<String, LongList> postings = new HashMap<>();
+    private final Map<Long, Long> rooms = new HashMap<>();
+    private long maxId;
+
+    synchronized void add(long messageId, long roomId, Set<String> tokens) {
+        if (rooms.putIfAbsent(messageId, roomId) != null) return;
+        for (String token : tokens) postings.computeIfAbsent(token, k -> new LongList()).add(messageId);
+        maxId = Math.max(maxId, messageId);
+    }
+
+    @Override
+    public synchronized Postings postings(String token) {
+        final LongList list = postings.get(token);
+        return list == null ? Postings.EMPTY : ofArray(list.sortedCopy());
+    }
+
+    @Override
+    public synchronized long roomOf(long messageId) {
+        return rooms.getOrDefault(messageId, -1L);
+    }
+
+    @Override
+    public synchronized int docCount() {
+        return rooms.size();
+    }
+
+    @Override
+    public synchronized long maxId() {
+        return maxId;
+    }
+
+    /**
+     * 디스크 세그먼트 작성용 정렬 스냅샷
+     */
+    synchronized TreeMap<String, long[]> sortedPostings() {
+        final TreeMap<String, long[]> sorted = new TreeMap<>();
+        postings.forEach((token, list) -> sorted.put(token, list.sortedCopy()));
+        return sorted;
+    }
+
+    synchronized TreeMap<Long, Long> sortedRooms() {
+        return new TreeMap<>(rooms);
+    }
+
+    static Postings ofArray(long[] values) {
+        return new Postings() {
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public long get(int index) {
+                return values[index];
+            }
+        };
+    }
+}
@@ -0,0 +1,427 @@
+package com.forestfull.chat.search;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 🔹 메시지 전문 검색 색인 (2-gram 역색인)
+ * 저장된 메시지는 큐에 넣기만 하고 색인 스레드가 메모리 세그먼트에 반영하므로 전송 경로를 막지 않습니다.
+ * 메모리 세그먼트는 flush-docs 개마다 불변 디스크 세그먼트로 내려가고, 세그먼트가 많아지면 백그라운드에서 병합합니다.
+ * 재시작 시 디스크 세그먼트의 최대 id 이후 메시지를 DB 에서 다시 색인합니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageSearchIndex implements DisposableBean {
+
+    /**
+     * @param roomIds key: messageId, value: roomId
+     */
+    public record Hits(List<Long> messageIds, Map<Long, Long> roomIds, boolean hasMore) {
+    }
+
+    private static final int CATCH_UP_PAGE = 1000;
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.search.dir:./data/search}")
+    private String dir;
+
+    @Value("${app.chat.search.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${app.chat.search.flush-docs:50000}")
+    private int flushDocs;
+
+    @Value("${app.chat.search.flush-millis:10000}")
+    private long flushMillis;
+
+    @Value("${app.chat.search.merge-factor:8}")
+    private int mergeFactor;
+
+    @Value("${app.chat.search.max-segment-docs:2000000}")
+    private int maxSegmentDocs;
+
+    private BlockingQueue<ChatDTO.Message> queue;
+    private Path directory;
+    private final AtomicLong generation = new AtomicLong();
+    private final Object segmentsLock = new Object();
+
+    // 데이터는 active → flushing → disk 방향으로만 이동하므로 검색은 같은 순서로 읽음
+    private volatile MemorySegment active = new MemorySegment();
+    private volatile MemorySegment flushing;
+    private volatile List<DiskSegment> diskSegments = List.of();
+
+    private volatile boolean running = true;
+    private Thread indexer;
+    private Counter droppedCounter;
+    private Timer queryTimer;
+
+    @PostConstruct
+    void open() throws IOException {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+
+        final List<DiskSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);   // 쓰다 중단된 세그먼트
+                } else if (name.endsWith(DiskSegment.SUFFIX)) {
+                    loaded.add(DiskSegment.open(file));
+                    generation.set(Math.max(generation.get(), generationOf(name)));
+                }
+            }
+        }
+        diskSegments = List.copyOf(loaded);
+
+        droppedCounter = meterRegistry.counter("chat.search.index.dropped");
+        queryTimer = meterRegistry.timer("chat.search.query");
+        Gauge.builder("chat.search.index.queue.depth", queue, Collection::size).register(meterRegistry);
+        Gauge.builder("chat.search.segments", this, index -> index.diskSegments.size()).register(meterRegistry);
+        Gauge.builder("chat.search.docs", this, MessageSearchIndex::docCount).register(meterRegistry);
+
+        indexer = new Thread(this::indexLoop, "search-indexer");
+        indexer.setDaemon(true);
+        indexer.start();
+        log.info("Message search index opened: dir={} segments={} docs={}", directory, loaded.size(), docCount());
+    }
+
+    /**
+     * 저장된 메시지를 색인 대기열에 넣습니다. 가득 차면 버리고 chat.search.index.dropped 로 집계합니다. (전송 경로는 기다리지 않음)
+     */
+    public void submit(ChatDTO.Message message) {
+        if (message == null || message.getId() == null || message.getRoomId() == null || message.getMessage() == null) return;
+        if (!queue.offer(message)) droppedCounter.increment();
+    }
+
+    /**
+     * 검색어의 모든 2-gram 을 포함한 메시지 id 를 최신순으로 반환합니다.
+     *
+     * @param roomId   null 이면 전체 방
+     * @param beforeId null 이면 최신부터
+     */
+    public Hits search(Long roomId, String query, Long beforeId, int limit) {
+        final Set<String> tokens = NgramTokenizer.tokenize(query);
+        if (tokens.isEmpty()) return new Hits(List.of(), Map.of(), false);
+
+        return queryTimer.record(() -> {
+            final List<String> terms = List.copyOf(tokens);
+            final long before = beforeId == null ? Long.MAX_VALUE : beforeId;
+            final int want = limit + 1;
+
+            // 세그먼트마다 상위 want 개씩 모아 합치면 전체 상위 want 개가 됨 (중복 id 는 제거)
+            final NavigableMap<Long, Long> found = new TreeMap<>(Comparator.reverseOrder());
+            collect(active, terms, roomId, before, want, found);
+            final MemorySegment pending = flushing;
+            if (pending != null) collect(pending, terms, roomId, before, want, found);
+            for (DiskSegment segment : diskSegments) collect(segment, terms, roomId, before, want, found);
+
+            final List<Long> ids = found.keySet().stream().limit(want).toList();
+            final boolean hasMore = ids.size() > limit;
+            return new Hits(hasMore ? ids.subList(0, limit) : ids, found, hasMore);
+        });
+    }
+
+    private static void collect(Segment segment, List<String> terms, Long roomId, long before, int want, Map<Long, Long> found) {
+        final Segment.Postings[] lists = new Segment.Postings[terms.size()];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = segment.postings(terms.get(i));
+            if (lists[i].size() == 0) return;
+        }
+        // 가장 짧은 목록을 뒤에서부터 훑고 나머지는 이진 탐색으로 확인
+        Arrays.sort(lists, Comparator.comparingInt(Segment.Postings::size));
+
+        final Segment.Postings driver = lists[0];
+        int added = 0;
+        for (int i = lowerBound(driver, before) - 1; i >= 0 && added < want; i--) {
+            final long id = driver.get(i);
+            if (i > 0 && driver.get(i - 1) == id) continue;
+
+            boolean matched = true;
+            for (int k = 1; k < lists.length && matched; k++) {
+                final int position = lowerBound(lists[k], id);
+                matched = position < lists[k].size() && lists[k].get(position) == id;
+            }
+            if (!matched) continue;
+            final long room = segment.roomOf(id);
+            if (roomId != null && room != roomId) continue;
+
+            if (found.putIfAbsent(id, room) == null) added++;
+        }
+    }
+
+    /**
+     * value 이상인 첫 위치
+     */
+    private static int lowerBound(Segment.Postings postings, long value) {
+        int low = 0;
+        int high = postings.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (postings.get(mid) < value) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void indexLoop() {
+        try {
+            catchUp();
+        } catch (Exception e) {
+            log.error("💥 Search index catch-up failed: {}", e.getMessage(), e);
+        }
+
+        long lastFlush = System.currentTimeMillis();
+        final List<ChatDTO.Message> batch = new ArrayList<>();
+        while (running) {
+            try {
+                final ChatDTO.Message first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, 1000);
+                    batch.forEach(this::index);
+                    batch.clear();
+                }
+
+                final boolean due = System.currentTimeMillis() - lastFlush >= flushMillis;
+                if (active.docCount() >= flushDocs || (due && active.docCount() > 0)) {
+                    flush();
+                    lastFlush = System.currentTimeMillis();
+                }
+            } catch (InterruptedException e) {
+                if (!running) return;
+            } catch (Exception e) {
+                log.error("💥 Search indexing failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 디스크 세그먼트에 없는 최근 메시지를 DB 에서 다시 색인 (메모리 세그먼트는 재시작 시 사라짐)
+     */
+    private void catchUp() throws IOException {
+        long afterId = diskSegments.stream().mapToLong(Segment::maxId).max().orElse(0);
+        long total = 0;
+        while (running) {
+            final List<ChatDTO.Message> page = chatMessageMapper.findMessagesAfter(afterId, CATCH_UP_PAGE);
+            for (ChatDTO.Message message : page) {
+                index(message);
+                afterId = Math.max(afterId, message.getId());
+            }
+            total += page.size();
+            if (active.docCount() >= flushDocs) flush();
+            if (page.size() < CATCH_UP_PAGE) break;
+        }
+        if (total > 0) log.info("Search index caught up {} messages from DB", total);
+    }
+
+    private void index(ChatDTO.Message message) {
+        active.add(message.getId(), message.getRoomId(), NgramTokenizer.tokenize(message.getMessage()));
+    }
+
+    /**
+     * 색인 스레드에서만 호출
+     */
+    private void flush() throws IOException {
+        final MemorySegment frozen = active;
+        flushing = frozen;
+        active = new MemorySegment();
+
+        final DiskSegment written = DiskSegment.write(nextPath(),
+                frozen.sortedPostings().entrySet().stream()
+                        .map(e -> new DiskSegment.TermPostings(e.getKey(), e.getValue()))
+                        .iterator(),
+                frozen.sortedRooms().entrySet().stream()
+                        .map(e -> new long[]{e.getKey(), e.getValue()})
+                        .iterator());
+
+        synchronized (segmentsLock) {
+            final List<DiskSegment> next = new ArrayList<>(diskSegments);
+            next.add(written);
+            diskSegments = List.copyOf(next);
+            flushing = null;
+        }
+        log.debug("Search segment flushed: {} docs={}", written.path().getFileName(), written.docCount());
+    }
+
+    /**
+     * 🔹 세그먼트 병합: merge-factor 개를 넘으면 작은 세그먼트부터 max-segment-docs 이내로 묶어 하나로 합침
+     */
+    @Scheduled(fixedDelayString = "${app.chat.search.merge-millis:30000}")
+    void merge() {
+        final List<DiskSegment> current = diskSegments;
+        if (current.size() <= mergeFactor) return;
+
+        final List<DiskSegment> candidates = new ArrayList<>(current);
+        candidates.sort(Comparator.comparingInt(DiskSegment::docCount));
+        final List<DiskSegment> selected = new ArrayList<>();
+        long docs = 0;
+        for (DiskSegment segment : candidates) {
+            if (selected.size() == mergeFactor || docs + segment.docCount() > maxSegmentDocs) break;
+            selected.add(segment);
+            docs += segment.docCount();
+        }
+        if (selected.size() < 2) return;
+
+        try {
+            final DiskSegment merged = DiskSegment.write(nextPath(), mergeTerms(selected), mergeDocs(selected));
+            synchronized (segmentsLock) {
+                final List<DiskSegment> next = new ArrayList<>(diskSegments);
+                next.removeAll(selected);
+                next.add(merged);
+                diskSegments = List.copyOf(next);
+            }
+            // 이미 매핑된 버퍼는 파일이 지워져도 유효하므로 진행 중인 검색에는 영향 없음
+            for (DiskSegment segment : selected) Files.deleteIfExists(segment.path());
+            log.info("Search segments merged: {} -> {} docs={}", selected.size(), merged.path().getFileName(), merged.docCount());
+        } catch (IOException e) {
+            log.error("💥 Search segment merge failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private Path nextPath() {
+        return directory.resolve(String.format("seg-%019d%s", generation.incrementAndGet(), DiskSegment.SUFFIX));
+    }
+
+    private long docCount() {
+        long count = active.docCount();
+        for (DiskSegment segment : diskSegments) count += segment.docCount();
+        return count;
+    }
+
+    private static long generationOf(String fileName) {
+        try {
+            return Long.parseLong(fileName.substring("seg-".length(), fileName.length() - DiskSegment.SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 세그먼트별 토큰 반복자를 k-way 병합해 토큰 순으로 합친 postings 를 만듦
+     */
+    private static Iterator<DiskSegment.TermPostings> mergeTerms(List<DiskSegment> segments) {
+        final PriorityQueue<Cursor<DiskSegment.TermPostings>> heads =
+                new PriorityQueue<>(Comparator.comparing((Cursor<DiskSegment.TermPostings> c) -> c.head.token()));
+        segments.forEach(segment -> Cursor.offer(heads, segment.terms()));
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public DiskSegment.TermPostings next() {
+                if (heads.isEmpty()) throw new NoSuchElementException();
+                final String token = heads.peek().head.token();
+                final List<long[]> parts = new ArrayList<>();
+                while (!heads.isEmpty() && heads.peek().head.token().equals(token)) {
+                    final Cursor<DiskSegment.TermPostings> cursor = heads.poll();
+                    parts.add(cursor.head.ids());
+                    cursor.advance(heads);
+                }
+                return new DiskSegment.TermPostings(token, unionSorted(parts));
+            }
+        };
+    }
+
+    private static Iterator<long[]> mergeDocs(List<DiskSegment> segments) {
+        final PriorityQueue<Cursor<long[]>> heads = new PriorityQueue<>(Comparator.comparingLong((Cursor<long[]> c) -> c.head[0]));
+        segments.forEach(segment -> Cursor.offer(heads, segment.docs()));
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public long[] next() {
+                if (heads.isEmpty()) throw new NoSuchElementException();
+                final Cursor<long[]> cursor = heads.poll();
+                final long[] doc = cursor.head;
+                cursor.advance(heads);
+                // 재색인으로 여러 세그먼트에 들어간 같은 id 는 하나만 남김
+                while (!heads.isEmpty() && heads.peek().head[0] == doc[0]) heads.poll().advance(heads);
+                return doc;
+            }
+        };
+    }
+
+    private static long[] unionSorted(List<long[]> parts) {
+        final long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) return all;
+
+        int size = 1;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] != all[size - 1]) all[size++] = all[i];
+        }
+        return Arrays.copyOf(all, size);
+    }
+
+    private static final class Cursor<T> {
+        private final Iterator<T> iterator;
+        private T head;
+
+        private Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+        }
+
+        static <T> void offer(PriorityQueue<Cursor<T>> heads, Iterator<T> iterator) {
+            new Cursor<>(iterator).advance(heads);
+        }
+
+        void advance(PriorityQueue<Cursor<T>> heads) {
+            if (!iterator.hasNext()) return;
+            head = iterator.next();
+            heads.add(this);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        if (indexer != null) {
+            indexer.interrupt();
+            indexer.join(5000);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.forestfull.chat.search;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.message.ChatMessageService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/chat/messages")
+public class MessageSearchRestController {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 100;
+
+    private final ChatMessageService chatMessageService;
+
+    /**
+     * GET /api/chat/messages/search: 전체 방 메시지 검색 (두 글자 이상, cursor 로 다음 페이지)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ChatDTO.MessagePage> search(@RequestParam("q") String query,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit) {
+        Long beforeId = null;
+        if (cursor != null) {
+            try {
+                beforeId = ChatMessageService.decodeCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
+        final int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(chatMessageService.searchMessages(null, query, beforeId, pageSize));
+    }
+}
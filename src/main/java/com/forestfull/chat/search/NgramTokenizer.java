@@ -0,0 +1,47 @@
+package com.forestfull.chat.search;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 🔹 n-gram 토크나이저
+ * 글자/숫자 연속 구간을 잘라 2-gram 으로 나눕니다. 형태소 분석 없이 한국어(조사 붙은 어절)와 영어 부분 일치를 모두 처리합니다.
+ * 한 글자짜리 구간은 그대로 토큰이 되므로, 두 글자 이상 검색어가 본문 어디에 있든 찾을 수 있습니다.
+ */
+final class NgramTokenizer {
+
+    static final int GRAM = 2;
+
+    private NgramTokenizer() {
+    }
+
+    static Set<String> tokenize(String text) {
+        final Set<String> tokens = new LinkedHashSet<>();
+        if (text == null || text.isEmpty()) return tokens;
+
+        // 전각/반각, 대소문자 차이를 없앰
+        final String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        final int[] codePoints = normalized.codePoints().toArray();
+
+        int start = -1;
+        for (int i = 0; i <= codePoints.length; i++) {
+            final boolean word = i < codePoints.length && Character.isLetterOrDigit(codePoints[i]);
+            if (word && start < 0) start = i;
+            if (!word && start >= 0) {
+                addGrams(codePoints, start, i, tokens);
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addGrams(int[] codePoints, int from, int to, Set<String> tokens) {
+        if (to - from < GRAM) {
+            tokens.add(new String(codePoints, from, to - from));
+            return;
+        }
+        for (int i = from; i + GRAM <= to; i++) tokens.add(new String(codePoints, i, GRAM));
+    }
+}
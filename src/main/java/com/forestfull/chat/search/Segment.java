@@ -0,0 +1,40 @@
+package com.forestfull.chat.search;
+
+/**
+ * 🔹 검색 색인 세그먼트 (메모리 또는 디스크)
+ * 토큰별 메시지 id 목록(오름차순)과 메시지 id → roomId 를 제공합니다.
+ */
+interface Segment {
+
+    /**
+     * 오름차순 메시지 id 목록. 중복 id 가 연속으로 들어 있을 수 있습니다.
+     */
+    interface Postings {
+        Postings EMPTY = new Postings() {
+            @Override
+            public int size() {
+                return 0;
+            }
+
+            @Override
+            public long get(int index) {
+                throw new IndexOutOfBoundsException(index);
+            }
+        };
+
+        int size();
+
+        long get(int index);
+    }
+
+    Postings postings(String token);
+
+    /**
+     * @return 이 세그먼트에 없는 id 면 -1
+     */
+    long roomOf(long messageId);
+
+    int docCount();
+
+    long maxId();
+}
@@ -0,0 +1,15 @@
+package com.forestfull.chat.unread;
+
+import com.forestfull.chat.ChatDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface ReadPositionMapper {
+
+    List<ChatDTO.ReadReceipt> findReadPositions(@Param("memberId") Long memberId);
+
+    int upsertReadPositions(@Param("positions") List<ChatDTO.ReadReceipt> positions);
+}
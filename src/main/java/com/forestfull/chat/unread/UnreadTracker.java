@@ -0,0 +1,366 @@
+package com.forestfull.chat.unread;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.cluster.ClusterBus;
+import com.forestfull.chat.cluster.ClusterEvent;
+import com.forestfull.chat.message.ChatMessageBroadcaster;
+import com.forestfull.chat.message.ChatMessageMapper;
+import com.forestfull.chat.room.RoomRosterIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 🔹 방별 안 읽은 메시지 수 / 읽음 위치
+ * 방마다 최근 tail-size 개의 메시지 id 만 정렬된 링으로 들고, 안 읽은 수는 lastReadId 보다 큰 id 의 개수(이분 탐색)로 계산합니다.
+ * lastReadId 가 링보다 오래됐으면 capped(예: 999+)로 표시하므로 chat_message 를 회원/방마다 세지 않습니다.
+ * 읽음 위치는 회원 단위로 처음 필요할 때 한 번 읽고, 변경분은 모아서 주기적으로 일괄 저장합니다.
+ * 새 메시지와 읽음 변경은 push-tick 마다 묶어서, 이 노드에 접속한 참여자에게 /user/queue/unread 로 보냅니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadTracker {
+
+    public static final String UNREAD_DESTINATION = "/queue/unread";
+    public static final String RECEIPTS_SUFFIX = "/receipts";
+
+    private final ChatMessageMapper chatMessageMapper;
+    private final ReadPositionMapper readPositionMapper;
+    private final RoomRosterIndex roomRosterIndex;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final ClusterBus clusterBus;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.chat.unread.tail-size:1000}")
+    private int tailSize;
+
+    @Value("${app.chat.unread.idle-evict-millis:1800000}")
+    private long idleEvictMillis;
+
+    // key: roomId
+    private final ConcurrentMap<Long, RoomTail> tails = new ConcurrentHashMap<>();
+    // key: memberId
+    private final ConcurrentMap<Long, MemberPositions> positions = new ConcurrentHashMap<>();
+    // 아직 DB 에 저장되지 않은 읽음 위치 (key: memberId, value: (key: roomId))
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Long>> unsaved = new ConcurrentHashMap<>();
+
+    // 다음 push-tick 에 보낼 것들
+    private final Set<Long> dirtyRooms = ConcurrentHashMap.newKeySet();
+    // key: roomId, value: (key: memberId)
+    private final ConcurrentMap<Long, ConcurrentMap<Long, ChatDTO.ReadReceipt>> pendingReceipts = new ConcurrentHashMap<>();
+
+    private Counter pushFrames;
+    private Counter savedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        pushFrames = meterRegistry.counter("chat.unread.push.frames");
+        savedCounter = meterRegistry.counter("chat.unread.positions.saved");
+        Gauge.builder("chat.unread.rooms", tails, Map::size).register(meterRegistry);
+        Gauge.builder("chat.unread.members", positions, Map::size).register(meterRegistry);
+        Gauge.builder("chat.unread.positions.unsaved", unsaved, u -> u.values().stream().mapToInt(Map::size).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * 저장된 TALK 메시지를 방 링에 추가합니다. (입장/퇴장 메시지는 id 가 없어 무시)
+     */
+    public void onMessage(ChatDTO.Message message) {
+        if (message.getId() == null || message.getRoomId() == null) return;
+        if (message.getType() != null && message.getType() != ChatDTO.Message.MessageType.TALK) return;
+
+        final RoomTail tail = tails.get(message.getRoomId());
+        if (tail != null) tail.append(message.getId());
+        dirtyRooms.add(message.getRoomId());
+    }
+
+    /**
+     * 참여자의 읽음 위치를 앞으로만 옮깁니다. 옮겨졌으면 다른 노드에도 알리고 다음 tick 에 영수증/안 읽은 수를 보냅니다.
+     *
+     * @param messageId null 이면 방의 최신 메시지까지 읽음 처리 (최신 메시지보다 크면 최신으로 맞춤)
+     */
+    public boolean markRead(Long roomId, Long memberId, String username, Long messageId) {
+        if (roomId == null || memberId == null || !roomRosterIndex.contains(roomId, memberId)) return false;
+        final long latest = tail(roomId).latest();
+        final long target = messageId == null ? latest : Math.min(messageId, latest);
+        if (target <= 0 || !positionsOf(memberId).advance(roomId, target)) return false;
+
+        unsaved.computeIfAbsent(memberId, k -> new ConcurrentHashMap<>()).merge(roomId, target, Math::max);
+        final ChatDTO.ReadReceipt receipt = ChatDTO.ReadReceipt.builder()
+                .roomId(roomId)
+                .userId(memberId)
+                .username(username)
+                .lastReadId(target)
+                .build();
+        queueReceipt(receipt);
+        clusterBus.publish(new ClusterEvent.RoomReadReceipt(receipt));
+        return true;
+    }
+
+    /**
+     * 다른 노드에서 옮긴 읽음 위치 반영 (저장은 발행 노드가 담당)
+     */
+    public void applyRemoteRead(ChatDTO.ReadReceipt receipt) {
+        final MemberPositions member = positions.get(receipt.getUserId());
+        if (member != null) member.advance(receipt.getRoomId(), receipt.getLastReadId());
+        queueReceipt(receipt);
+    }
+
+    /**
+     * 회원이 참여 중인 모든 방의 안 읽은 수 (로비 배지용)
+     */
+    public List<ChatDTO.UnreadCount> getUnreadCounts(Long memberId) {
+        final MemberPositions member = positionsOf(memberId);
+        final List<ChatDTO.UnreadCount> counts = new ArrayList<>();
+        for (Long roomId : roomRosterIndex.getRoomIds(memberId)) {
+            counts.add(count(roomId, member));
+        }
+        return counts;
+    }
+
+    /**
+     * 🔹 push-tick: 새 메시지가 온 방의 참여자와 읽음 위치가 바뀐 회원에게 안 읽은 수를 사용자별 한 프레임으로 전송
+     * 이 노드에 세션이 있는 사용자에게만 보내며, 다른 노드의 사용자는 그 노드가 같은 이벤트로 처리합니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.unread.push-tick-millis:1000}")
+    void pushUpdates() {
+        // key: username, value: (key: roomId)
+        final Map<String, Map<Long, ChatDTO.UnreadCount>> updates = new HashMap<>();
+
+        final List<Long> rooms = new ArrayList<>(dirtyRooms);
+        dirtyRooms.removeAll(rooms);
+        for (Long roomId : rooms) {
+            for (ChatDTO.Participant participant : roomRosterIndex.getParticipants(roomId)) {
+                if (!isConnectedHere(participant.getUsername())) continue;
+                updates.computeIfAbsent(participant.getUsername(), k -> new LinkedHashMap<>())
+                        .put(roomId, count(roomId, positionsOf(participant.getUserId())));
+            }
+        }
+
+        for (Long roomId : List.copyOf(pendingReceipts.keySet())) {
+            final Map<Long, ChatDTO.ReadReceipt> receipts = pendingReceipts.remove(roomId);
+            if (receipts == null || receipts.isEmpty()) continue;
+
+            messagingTemplate.convertAndSend(ChatMessageBroadcaster.ROOM_TOPIC_PREFIX + roomId + RECEIPTS_SUFFIX,
+                    List.copyOf(receipts.values()));
+            for (ChatDTO.ReadReceipt receipt : receipts.values()) {
+                if (!isConnectedHere(receipt.getUsername())) continue;
+                updates.computeIfAbsent(receipt.getUsername(), k -> new LinkedHashMap<>())
+                        .put(roomId, count(roomId, positionsOf(receipt.getUserId())));
+            }
+        }
+
+        updates.forEach((username, counts) -> {
+            messagingTemplate.convertAndSendToUser(username, UNREAD_DESTINATION, List.copyOf(counts.values()));
+            pushFrames.increment();
+        });
+    }
+
+    /**
+     * 💾 변경된 읽음 위치 일괄 저장. 실패하면 남겨 두고 다음 주기에 다시 시도합니다.
+     */
+    @Scheduled(fixedDelayString = "${app.chat.unread.persist-millis:5000}")
+    void persist() {
+        final List<ChatDTO.ReadReceipt> batch = new ArrayList<>();
+        unsaved.forEach((memberId, rooms) -> rooms.forEach((roomId, lastReadId) ->
+                batch.add(ChatDTO.ReadReceipt.builder().roomId(roomId).userId(memberId).lastReadId(lastReadId).build())));
+        if (batch.isEmpty()) return;
+
+        try {
+            readPositionMapper.upsertReadPositions(batch);
+        } catch (Exception e) {
+            log.warn("Read position save failed: size={} cause={}", batch.size(), e.getMessage());
+            return;
+        }
+
+        // 저장하는 동안 더 앞으로 옮겨진 값은 남겨서 다음 주기에 저장
+        for (ChatDTO.ReadReceipt saved : batch) {
+            unsaved.computeIfPresent(saved.getUserId(), (memberId, rooms) -> {
+                rooms.remove(saved.getRoomId(), saved.getLastReadId());
+                return rooms.isEmpty() ? null : rooms;
+            });
+        }
+        savedCounter.increment(batch.size());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        persist();
+    }
+
+    @Scheduled(fixedDelayString = "${app.chat.unread.sweep-millis:60000}")
+    void evictIdle() {
+        final long threshold = System.currentTimeMillis() - idleEvictMillis;
+        tails.values().removeIf(tail -> tail.lastAccess < threshold);
+        // 저장 대기 중인 값이 있는 회원은 다시 읽을 때 DB 값에 가려지지 않도록 남겨 둠
+        positions.entrySet().removeIf(e -> e.getValue().lastAccess < threshold && !unsaved.containsKey(e.getKey()));
+    }
+
+    private ChatDTO.UnreadCount count(Long roomId, MemberPositions member) {
+        final long lastReadId = member.get(roomId);
+        final RoomTail tail = tail(roomId);
+        final int unread = tail.countAfter(lastReadId);
+        return ChatDTO.UnreadCount.builder()
+                .roomId(roomId)
+                .count(unread)
+                .capped(tail.isTruncatedAfter(lastReadId))
+                .lastReadId(lastReadId == 0 ? null : lastReadId)
+                .build();
+    }
+
+    private void queueReceipt(ChatDTO.ReadReceipt receipt) {
+        pendingReceipts.computeIfAbsent(receipt.getRoomId(), k -> new ConcurrentHashMap<>())
+                .merge(receipt.getUserId(), receipt,
+                        (a, b) -> a.getLastReadId() >= b.getLastReadId() ? a : b);
+    }
+
+    private boolean isConnectedHere(String username) {
+        return username != null && simpUserRegistry.getUser(username) != null;
+    }
+
+    private RoomTail tail(Long roomId) {
+        return tails.computeIfAbsent(roomId, RoomTail::new);
+    }
+
+    private MemberPositions positionsOf(Long memberId) {
+        return positions.computeIfAbsent(memberId, MemberPositions::new);
+    }
+
+    /**
+     * 회원의 방별 lastReadId. 최초 접근 시 DB 에서 한 번 읽습니다.
+     */
+    private final class MemberPositions {
+        private final Long memberId;
+        private Map<Long, Long> lastRead;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        MemberPositions(Long memberId) {
+            this.memberId = memberId;
+        }
+
+        synchronized long get(Long roomId) {
+            return loaded().getOrDefault(roomId, 0L);
+        }
+
+        synchronized boolean advance(Long roomId, long messageId) {
+            final Map<Long, Long> map = loaded();
+            final long current = map.getOrDefault(roomId, 0L);
+            if (messageId <= current) return false;
+            map.put(roomId, messageId);
+            return true;
+        }
+
+        private Map<Long, Long> loaded() {
+            lastAccess = System.currentTimeMillis();
+            if (lastRead == null) {
+                lastRead = new HashMap<>();
+                readPositionMapper.findReadPositions(memberId)
+                        .forEach(p -> lastRead.put(p.getRoomId(), p.getLastReadId()));
+            }
+            return lastRead;
+        }
+    }
+
+    /**
+     * 방의 최근 메시지 id 를 오름차순으로 담는 고정 크기 링. 최초 접근 시 DB 에서 한 번 채웁니다.
+     * 노드 간 전달 순서 때문에 가끔 더 작은 id 가 늦게 올 수 있어 끝에서부터 자리를 찾아 넣습니다.
+     */
+    private final class RoomTail {
+        private final Long roomId;
+        private final long[] ring = new long[tailSize];
+        private int start;  // 가장 오래된 id 위치
+        private int size;
+        private boolean loaded;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        RoomTail(Long roomId) {
+            this.roomId = roomId;
+        }
+
+        synchronized void append(long id) {
+            if (!loaded) return; // 로드 쿼리가 가져옴
+            insert(id);
+        }
+
+        synchronized long latest() {
+            load();
+            return size == 0 ? 0 : at(size - 1);
+        }
+
+        /**
+         * lastReadId 보다 큰 id 의 수 (링 안에서만)
+         */
+        synchronized int countAfter(long lastReadId) {
+            load();
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (at(mid) <= lastReadId) low = mid + 1;
+                else high = mid;
+            }
+            return size - low;
+        }
+
+        /**
+         * 링이 가득 찼고 lastReadId 가 링의 가장 오래된 id 보다 앞이면 실제 안 읽은 수는 더 많음
+         */
+        synchronized boolean isTruncatedAfter(long lastReadId) {
+            load();
+            return size == ring.length && lastReadId < at(0);
+        }
+
+        private void load() {
+            lastAccess = System.currentTimeMillis();
+            if (loaded) return;
+            final List<Long> ids = chatMessageMapper.findRecentMessageIds(roomId, ring.length);
+            final long[] ascending = ids.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(ascending);
+            for (long id : ascending) insert(id);
+            loaded = true;
+        }
+
+        private void insert(long id) {
+            // 이미 있는 id 는 무시, 가득 찼으면 가장 오래된 id 를 버림 (그보다 작은 id 는 넣지 않음)
+            int position = size;
+            while (position > 0 && at(position - 1) >= id) {
+                if (at(position - 1) == id) return;
+                position--;
+            }
+            if (size == ring.length) {
+                if (position == 0) return;
+                start = (start + 1) % ring.length;
+                size--;
+                position--;
+            }
+            for (int i = size; i > position; i--) ring[(start + i) % ring.length] = at(i - 1);
+            ring[(start + position) % ring.length] = id;
+            size++;
+        }
+
+        private long at(int index) {
+            return ring[(start + index) % ring.length];
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.forestfull.common.token;
 
 import org.apache.ibatis.annotations.*;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface RefreshTokenMapper {
@@ -25,6 +27,18 @@ public interface RefreshTokenMapper {
     """)
     String findValidTokenByMemberId(@Param("memberId") Long memberId);
 
+    @Select("""
+        <script>
+        SELECT DISTINCT member_id
+        FROM chat_forestfull.refresh_token
+        WHERE is_revoked = 0
+          AND expiry_date > NOW()
+          AND member_id IN
+          <foreach collection="memberIds" item="memberId" open="(" separator="," close=")">#{memberId}</foreach>
+        </script>
+    """)
+    List<Long> findMembersWithValidToken(@Param("memberIds") Collection<Long> memberIds);
+
     @Update("""
         UPDATE chat_forestfull.refresh_token
         SET is_revoked = 1
@@ -37,4 +51,11 @@ public interface RefreshTokenMapper {
         WHERE member_id = #{memberId}
     """)
     int deleteByMemberId(@Param("memberId") Long memberId);
+
+    @Delete("""
+        DELETE FROM chat_forestfull.refresh_token
+        WHERE member_id = #{memberId}
+          AND token = #{token}
+    """)
+    int deleteToken(@Param("memberId") Long memberId, @Param("token") String token);
 }
@@ -0,0 +1,152 @@
+package com.forestfull.common.token;
+
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 🔹 Refresh Token 회전 (사용자별 single-flight)
+ * access token 이 만료되면 브라우저가 동시에 여러 요청을 보내므로, 같은 사용자의 회전은 한 번만 실행하고 나머지 요청은 그 결과를 같이 씁니다.
+ * 회전 직후 grace-millis 동안은 이전 refresh token 으로 온 요청(쿠키 갱신 전에 출발한 요청)에도 DB 조회 없이 같은 결과를 돌려줍니다.
+ * grace 결과는 이전 토큰별로 보관하므로 같은 사용자의 다른 기기가 회전해도 서로의 grace 를 지우지 않습니다.
+ * 회전이 끝나면 이전 토큰 행은 삭제해 요청마다 refresh_token 행이 쌓이지 않게 합니다. (노드 단위 single-flight)
+ */
+@Slf4j
+@Component
+public class RefreshTokenRotator {
+
+    public record Rotation(User user, String accessToken, String refreshToken) {
+    }
+
+    // previousToken 이 null 이면 폐기(revoke) 중
+    private record InFlight(String previousToken, CompletableFuture<Rotation> result) {
+    }
+
+    private record Completed(Long memberId, Rotation rotation, long acceptUntilMillis) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final JwtUtil.Refresh refreshTokenUtil;
+    private final RefreshTokenMapper refreshTokenMapper;
+    private final long graceMillis;
+    private final long waitMillis;
+    private final Counter rotatedCounter;
+    private final Counter coalescedCounter;
+    private final Counter graceCounter;
+
+    // key: memberId
+    private final ConcurrentMap<Long, InFlight> inFlight = new ConcurrentHashMap<>();
+    // key: 회전 전 refresh token
+    private final ConcurrentMap<String, Completed> recent = new ConcurrentHashMap<>();
+
+    public RefreshTokenRotator(JwtUtil jwtUtil,
+                               JwtUtil.Refresh refreshTokenUtil,
+                               RefreshTokenMapper refreshTokenMapper,
+                               @Value("${app.auth.refresh.grace-millis:10000}") long graceMillis,
+                               @Value("${app.auth.refresh.wait-millis:5000}") long waitMillis,
+                               MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.refreshTokenUtil = refreshTokenUtil;
+        this.refreshTokenMapper = refreshTokenMapper;
+        this.graceMillis = graceMillis;
+        this.waitMillis = waitMillis;
+        this.rotatedCounter = meterRegistry.counter("auth.refresh.rotated");
+        this.coalescedCounter = meterRegistry.counter("auth.refresh.coalesced");
+        this.graceCounter = meterRegistry.counter("auth.refresh.grace");
+    }
+
+    /**
+     * 새 access/refresh token 을 반환합니다. 토큰이 유효하지 않거나 대기 시간을 넘기면 null
+     */
+    public Rotation rotate(String refreshToken) {
+        final Long memberId = refreshTokenUtil.getUserId(refreshToken);
+        if (memberId == null) return null;
+
+        // 다른 토큰의 회전이 진행 중이면 한 번만 기다렸다가 다시 시도
+        for (int attempt = 0; attempt < 2; attempt++) {
+            final Completed completed = recent.get(refreshToken);
+            if (completed != null && completed.acceptUntilMillis() > System.currentTimeMillis()) {
+                graceCounter.increment();
+                return completed.rotation();
+            }
+
+            final InFlight mine = new InFlight(refreshToken, new CompletableFuture<>());
+            final InFlight running = inFlight.putIfAbsent(memberId, mine);
+            if (running == null) return lead(memberId, mine);
+
+            final Rotation shared = await(running.result());
+            if (refreshToken.equals(running.previousToken())) {
+                coalescedCounter.increment();
+                return shared;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 로그아웃/비밀번호 변경/탈퇴 시 사용자의 refresh token 을 폐기합니다.
+     * 진행 중인 회전이 끝날 때까지 기다린 뒤 자리를 차지하고 grace 결과와 DB 토큰을 지우므로, 폐기 도중 새 토큰이 발급되거나 이전 토큰이 grace 로 통과하지 않습니다.
+     */
+    public void revoke(Long memberId) {
+        final InFlight revoking = new InFlight(null, new CompletableFuture<>());
+        InFlight running;
+        while ((running = inFlight.putIfAbsent(memberId, revoking)) != null) await(running.result());
+
+        try {
+            recent.values().removeIf(completed -> completed.memberId().equals(memberId));
+            refreshTokenUtil.deleteTokenByUserId(memberId);
+        } finally {
+            inFlight.remove(memberId, revoking);
+            revoking.result().complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.refresh.sweep-millis:60000}")
+    void evictExpired() {
+        final long now = System.currentTimeMillis();
+        recent.values().removeIf(completed -> completed.acceptUntilMillis() <= now);
+    }
+
+    private Rotation lead(Long memberId, InFlight mine) {
+        Rotation rotation = null;
+        try {
+            final User user = refreshTokenUtil.validateAndGetUser(mine.previousToken());
+            if (user != null) {
+                rotation = new Rotation(user, jwtUtil.generateToken(user), refreshTokenUtil.generateToken(user));
+                refreshTokenMapper.deleteToken(user.getId(), mine.previousToken());
+                // in-flight 를 지우기 전에 등록해야 그 사이에 온 요청도 grace 로 처리됨
+                recent.put(mine.previousToken(), new Completed(memberId, rotation, System.currentTimeMillis() + graceMillis));
+                rotatedCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("💥 Refresh token rotation failed: member={} cause={}", memberId, e.getMessage());
+            rotation = null;
+        } finally {
+            inFlight.remove(memberId, mine);
+        }
+        mine.result().complete(rotation);
+        return rotation;
+    }
+
+    private Rotation await(CompletableFuture<Rotation> result) {
+        try {
+            return result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+}
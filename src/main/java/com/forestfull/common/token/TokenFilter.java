@@ -1,7 +1,6 @@
 package com.forestfull.common.token;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
-import com.auth0.jwt.interfaces.DecodedJWT;
 import com.forestfull.config.SecurityConfig;
 import com.forestfull.domain.User;
 import jakarta.servlet.FilterChain;
@@ -32,6 +31,8 @@ public class TokenFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final JwtUtil.Refresh refreshTokenUtil;
     private final CookieUtil cookieUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RefreshTokenRotator refreshTokenRotator;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -62,16 +63,8 @@ public class TokenFilter extends OncePerRequestFilter {
 
             optionalCookie
                     .map(cookie -> {
-                        final DecodedJWT decodedJWT = jwtUtil.verifyToken(cookie.getValue());
-                        final Long userId = Long.valueOf(decodedJWT.getSubject());
-
-                        User user = User.builder()
-                                .id(userId)
-                                .name(decodedJWT.getClaim("username").asString())
-                                .displayName(decodedJWT.getClaim("displayName").asString())
-                                .profileImage(decodedJWT.getClaim("profileImage").asString())
-                                .roles(decodedJWT.getClaim("roles").asString())
-                                .build();
+                        // 같은 토큰은 exp 까지 검증/파싱 결과를 재사용
+                        final User user = verifiedTokenCache.verify(cookie.getValue()).user();
 
                         final UsernamePasswordAuthenticationToken auth
                                 = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
@@ -110,15 +103,6 @@ public class TokenFilter extends OncePerRequestFilter {
                                        HttpServletRequest request,
                                        HttpServletResponse response) {
         final String oldRefreshToken = refreshCookie.getValue();
-        User user = refreshTokenUtil.validateAndGetUser(oldRefreshToken);
-
-        // Refresh Token 검증 실패 (만료, 위조, DB 불일치 등)
-        if (Objects.isNull(user)) {
-            cookieUtil.deleteAuthCookies(response);
-            return false; // 갱신 실패
-        }
-
-        // 🚨 1. [제거됨] 기존 토큰 삭제 로직은 generateToken 내부에서 처리됨을 가정
 
         List<String> roles = null;
         try {
@@ -129,28 +113,27 @@ public class TokenFilter extends OncePerRequestFilter {
 
         if (ObjectUtils.isEmpty(roles)) return false;
 
-        // 2. 새 Access Token과 Refresh Token 생성 및 DB 저장 (generateToken 내부에서 처리)
-        final String newAccessToken = jwtUtil.generateToken(user);
-        final String newRefreshToken = refreshTokenUtil.generateToken(user);
+        // 1. 검증 + 새 Access/Refresh Token 생성 (동시에 온 같은 사용자 요청은 한 번만 회전하고 결과 공유)
+        final RefreshTokenRotator.Rotation rotation = refreshTokenRotator.rotate(oldRefreshToken);
+
+        // Refresh Token 검증 실패 (만료, 위조, DB 불일치 등)
+        if (Objects.isNull(rotation)) {
+            cookieUtil.deleteAuthCookies(response);
+            return false; // 갱신 실패
+        }
+
+        final String newAccessToken = rotation.accessToken();
+        final String newRefreshToken = rotation.refreshToken();
 
-        // 3. 새 쿠키 발급 (클라이언트에게 전송)
+        // 2. 새 쿠키 발급 (클라이언트에게 전송)
         cookieUtil.addAccessToken(response, newAccessToken);
         cookieUtil.addPayload(response, newAccessToken);
         cookieUtil.addRefreshToken(response, newRefreshToken);
 
-        // 4. Security Context 재설정
+        // 3. Security Context 재설정
         try {
-            // 새 토큰으로 인증 정보 재설정
-            final DecodedJWT decodedJWT = jwtUtil.verifyToken(newAccessToken);
-            final Long userId = Long.valueOf(decodedJWT.getSubject());
-
-            user = User.builder()
-                    .id(userId)
-                    .name(decodedJWT.getClaim("username").asString())
-                    .displayName(decodedJWT.getClaim("displayName").asString())
-                    .profileImage(decodedJWT.getClaim("profileImage").asString())
-                    .roles(decodedJWT.getClaim("roles").asString())
-                    .build();
+            // 새 토큰으로 인증 정보 재설정 (캐시에도 넣어 다음 요청부터 재사용)
+            final User user = verifiedTokenCache.verify(newAccessToken).user();
 
             final UsernamePasswordAuthenticationToken auth =
                     new UsernamePasswordAuthenticationToken(user, null, roles.stream().map(SimpleGrantedAuthority::new).toList());
@@ -0,0 +1,110 @@
+package com.forestfull.common.token;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 🔹 검증된 Access Token 캐시
+ * 같은 토큰이 요청마다 다시 오므로, 서명 검증 + claim 파싱 + User 생성을 토큰의 exp 까지 한 번만 합니다.
+ * 키는 토큰 원문이 아니라 SHA-256 해시이며 (메모리에 토큰을 남기지 않음), max-entries 를 넘으면 만료된 항목을 먼저 정리하고 그래도 가득 차면 캐시하지 않습니다.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public record Verified(User user, long expiresAtMillis) {
+    }
+
+    private record Key(long a, long b, long c, long d) {
+    }
+
+    private final JwtUtil jwtUtil;
+    private final int maxEntries;
+    private final boolean enabled;
+    private final ConcurrentMap<Key, Verified> entries = new ConcurrentHashMap<>();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public VerifiedTokenCache(JwtUtil jwtUtil,
+                              @Value("${app.auth.token-cache.enabled:true}") boolean enabled,
+                              @Value("${app.auth.token-cache.max-entries:100000}") int maxEntries,
+                              MeterRegistry meterRegistry) {
+        this.jwtUtil = jwtUtil;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.hitCounter = meterRegistry.counter("auth.token-cache.hit");
+        this.missCounter = meterRegistry.counter("auth.token-cache.miss");
+        Gauge.builder("auth.token-cache.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * 캐시에 있고 아직 만료되지 않았으면 캐시된 결과를, 아니면 검증 후 캐시해서 반환합니다.
+     *
+     * @throws JWTVerificationException 서명 불일치, 만료 등
+     */
+    public Verified verify(String token) throws JWTVerificationException {
+        if (!enabled) return toVerified(jwtUtil.verifyToken(token));
+
+        final Key key = keyOf(token);
+        final Verified cached = entries.get(key);
+        final long now = System.currentTimeMillis();
+        if (cached != null && cached.expiresAtMillis() > now) {
+            hitCounter.increment();
+            return cached;
+        }
+
+        missCounter.increment();
+        if (cached != null) entries.remove(key, cached);
+
+        final Verified verified = toVerified(jwtUtil.verifyToken(token));
+        if (entries.size() >= maxEntries) evictExpired();
+        if (entries.size() < maxEntries) entries.put(key, verified);
+        return verified;
+    }
+
+    public static User toUser(DecodedJWT decodedJWT) {
+        return User.builder()
+                .id(Long.valueOf(decodedJWT.getSubject()))
+                .name(decodedJWT.getClaim("username").asString())
+                .displayName(decodedJWT.getClaim("displayName").asString())
+                .profileImage(decodedJWT.getClaim("profileImage").asString())
+                .roles(decodedJWT.getClaim("roles").asString())
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.token-cache.sweep-millis:60000}")
+    void evictExpired() {
+        final long now = System.currentTimeMillis();
+        entries.values().removeIf(verified -> verified.expiresAtMillis() <= now);
+    }
+
+    private static Verified toVerified(DecodedJWT decodedJWT) {
+        final long expiresAt = decodedJWT.getExpiresAt() == null ? Long.MAX_VALUE : decodedJWT.getExpiresAt().getTime();
+        return new Verified(toUser(decodedJWT), expiresAt);
+    }
+
+    private static Key keyOf(String token) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final ByteBuffer hash = ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        return new Key(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+    }
+}
@@ -1,6 +1,7 @@
 package com.forestfull.config;
 
 import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.SqlSessionTemplate;
@@ -12,7 +13,8 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import javax.sql.DataSource;
 
 @Configuration
-@MapperScan(basePackages = "com.forestfull")
+// @Mapper 가 붙은 인터페이스만 매퍼로 등록 (ClusterBus 같은 일반 인터페이스가 매퍼 빈으로 잡히지 않도록)
+@MapperScan(basePackages = "com.forestfull", annotationClass = Mapper.class)
 public class DataSourceConfig {
 
     @Bean
@@ -2,6 +2,7 @@ package com.forestfull.domain;
 
 import com.forestfull.common.token.CookieUtil;
 import com.forestfull.common.token.JwtUtil;
+import com.forestfull.common.token.RefreshTokenRotator;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -18,7 +19,6 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
-import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -28,6 +28,7 @@ public class AuthController {
     private final JwtUtil jwtUtil;
     private final CookieUtil cookieUtil;
     private final JwtUtil.Refresh refreshJwtUtil;
+    private final RefreshTokenRotator refreshTokenRotator;
     private final CustomUserDetailsService customUserService;
     private final AuthenticationManager authenticationManager;
 
@@ -81,7 +82,8 @@ public class AuthController {
 
         if (token != null) {
             Long id = Long.valueOf(jwtUtil.verifyToken(token).getSubject());
-            refreshJwtUtil.deleteTokenByUserId(id);
+            // 진행 중인 회전과 grace 결과까지 함께 폐기
+            refreshTokenRotator.revoke(id);
         }
         cookieUtil.deleteAuthCookies(response);
 
@@ -93,21 +95,16 @@ public class AuthController {
         if (!StringUtils.hasText(refreshToken))
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No refresh token");
 
-        Long userId = refreshJwtUtil.getUserId(refreshToken);
-        if (userId == null)
+        // TokenFilter 의 자동 갱신과 같은 회전을 공유 (동시 요청은 한 번만 회전, 직전 토큰은 grace 동안 허용)
+        final RefreshTokenRotator.Rotation rotation = refreshTokenRotator.rotate(refreshToken);
+        if (rotation == null)
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid refresh token");
 
-        if (!Objects.equals(refreshToken, refreshJwtUtil.getToken(userId)))
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Token mismatch");
-
-        final User user = customUserService.loadUserByUserId(userId);
-
-        // 새 Access Token 생성
-        final String newAccess = jwtUtil.generateToken(user);
-        cookieUtil.addAccessToken(response, newAccess);
+        cookieUtil.addAccessToken(response, rotation.accessToken());
 
         // JWT_PAYLOAD 쿠키 (JS 접근 가능)
-        cookieUtil.addPayload(response, newAccess);
+        cookieUtil.addPayload(response, rotation.accessToken());
+        cookieUtil.addRefreshToken(response, rotation.refreshToken());
 
         return ResponseEntity.ok(Map.of("message", "token refreshed"));
     }
@@ -6,6 +6,7 @@ import com.forestfull.common.smtp.EmailVerificationService;
 import com.forestfull.common.smtp.VerificationEmailDTO;
 import com.forestfull.common.token.CookieUtil;
 import com.forestfull.common.token.JwtUtil;
+import com.forestfull.common.token.RefreshTokenRotator;
 import com.forestfull.domain.CustomUserDetailsService;
 import com.forestfull.domain.User;
 import jakarta.mail.MessagingException;
@@ -36,6 +37,7 @@ public class MemberController {
     private final EmailVerificationService emailVerificationService;
     private final JwtUtil jwtUtil;
     private final JwtUtil.Refresh jwtRefreshUtil;
+    private final RefreshTokenRotator refreshTokenRotator;
     private final CookieUtil cookieUtil;
 
     // ---------------------------------------------------------------------------------
@@ -203,7 +205,7 @@ public class MemberController {
 
         try {
             memberService.changePassword(user.getId(), request.getPassword(), request.getNewPassword()); // 🚩 userId 사용
-            jwtRefreshUtil.deleteTokenByUserId(user.getId()); // 🚩 userId 사용
+            refreshTokenRotator.revoke(user.getId()); // 🚩 userId 사용
             cookieUtil.deleteAuthCookies(response);
 
             return ResponseEntity.ok(Map.of("message", "Password changed successfully. Please re-login."));
@@ -228,13 +230,13 @@ public class MemberController {
 
         try {
             // 1. Refresh Token DB에서 삭제
-            jwtRefreshUtil.deleteTokenByUserId(user.getId());
+            refreshTokenRotator.revoke(user.getId());
 
             // 2. 사용자 DB에서 삭제 (파일 시스템상의 프로필 이미지 파일도 삭제해야 함)
             memberService.deleteUser(user.getId());
 
             // 3. 인증 관련 쿠키 삭제
-            jwtRefreshUtil.deleteTokenByUserId(user.getId()); // 🚩 userId 사용
+            refreshTokenRotator.revoke(user.getId()); // 🚩 userId 사용
             cookieUtil.deleteAuthCookies(response);
 
             return ResponseEntity.ok(Map.of("message", "Account successfully deleted."));
@@ -0,0 +1,3 @@
+-- 방별 keyset 페이지네이션(findRecentMessages, findMessagesBefore)용 복합 인덱스
+-- WHERE room_id = ? AND id < ? ORDER BY id DESC LIMIT n 을 인덱스 range scan 한 번으로 처리
+CREATE INDEX idx_chat_message_room_id ON chat_forestfull.chat_message (room_id, id);
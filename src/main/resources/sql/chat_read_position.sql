@@ -0,0 +1,10 @@
+-- 회원별/방별 마지막 읽은 메시지 id (UnreadTracker 가 주기적으로 일괄 upsert)
+-- 안 읽은 수는 저장하지 않고 메모리의 방별 최근 메시지 id 와 비교해 계산
+CREATE TABLE chat_forestfull.chat_read_position
+(
+    member_id    BIGINT    NOT NULL,
+    room_id      BIGINT    NOT NULL,
+    last_read_id BIGINT    NOT NULL,
+    updated_at   TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (member_id, room_id)
+);
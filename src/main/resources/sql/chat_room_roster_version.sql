@@ -0,0 +1,4 @@
+-- 방별 참여자 목록 version (입장/퇴장마다 같은 트랜잭션에서 증가)
+-- 모든 노드가 같은 값을 쓰므로 참여자 변경(ParticipantDelta)과 스냅샷 version 을 노드와 관계없이 비교할 수 있음
+ALTER TABLE chat_forestfull.chat_room
+    ADD COLUMN roster_version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,116 @@
+package com.forestfull.chat.archive;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 세그먼트 형식 왕복: 쓰기 → 다시 열어 블록 색인/메시지 확인 → 손상된 블록은 검사값(zlib adler32)에서 거부
+ */
+class ArchiveSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenSegmentReadsBackBlockByBlock() throws Exception {
+        final List<ChatDTO.Message> room7 = List.of(message(7L, 1L, "첫 메시지"), message(7L, 2L, null), message(7L, 5L, "세 번째"));
+        final List<ChatDTO.Message> room8 = List.of(message(8L, 3L, "다른 방"));
+        final Path path = dir.resolve("0001" + ArchiveSegment.SUFFIX);
+
+        ArchiveSegment.write(path, List.of(room7, room8), 2);
+        assertFalse(Files.exists(dir.resolve(path.getFileName() + ".tmp")));
+
+        // 쓰기 결과가 아니라 파일에서 다시 연 세그먼트로 확인
+        final ArchiveSegment segment = ArchiveSegment.open(path);
+        final List<ArchiveSegment.Block> blocks = segment.blocks();
+        assertEquals(3, blocks.size());
+        assertBlock(blocks.get(0), 7L, 1L, 2L, 2);
+        assertBlock(blocks.get(1), 7L, 5L, 5L, 1);
+        assertBlock(blocks.get(2), 8L, 3L, 3L, 1);
+
+        final List<ChatDTO.Message> read = new ArrayList<>();
+        for (ArchiveSegment.Block block : blocks) read.addAll(block.read());
+        final List<ChatDTO.Message> written = new ArrayList<>(room7);
+        written.addAll(room8);
+        assertSameMessages(written, read);
+    }
+
+    @Test
+    void corruptBlockIsRejected() throws Exception {
+        final Path path = dir.resolve("0002" + ArchiveSegment.SUFFIX);
+        ArchiveSegment.write(path, List.of(List.of(message(7L, 1L, "손상될 메시지 ".repeat(20)))), 10);
+        final ArchiveSegment.Block block = ArchiveSegment.open(path).blocks().get(0);
+
+        // 압축 블록 끝의 검사값 바로 앞 바이트를 뒤집음
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long position = block.offset() + block.length() - 5;
+            final ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~one.get(0)}), position);
+        }
+
+        final ArchiveSegment reopened = ArchiveSegment.open(path);
+        assertThrows(IOException.class, () -> reopened.blocks().get(0).read());
+    }
+
+    @Test
+    void foreignFileIsNotOpened() throws Exception {
+        final Path path = dir.resolve("0003" + ArchiveSegment.SUFFIX);
+        Files.write(path, new byte[64]);
+        assertThrows(IOException.class, () -> ArchiveSegment.open(path));
+    }
+
+    private static void assertBlock(ArchiveSegment.Block block, long roomId, long firstId, long lastId, int count) {
+        assertEquals(roomId, block.roomId());
+        assertEquals(firstId, block.firstId());
+        assertEquals(lastId, block.lastId());
+        assertEquals(count, block.count());
+    }
+
+    private static void assertSameMessages(List<ChatDTO.Message> expected, List<ChatDTO.Message> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final ChatDTO.Message e = expected.get(i);
+            final ChatDTO.Message a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getRoomId(), a.getRoomId());
+            assertEquals(e.getMessage(), a.getMessage());
+            assertEquals(e.getCreatedAt(), a.getCreatedAt());
+            assertEquals(e.getCreatedBy(), a.getCreatedBy());
+            assertEquals(e.getUser().getId(), a.getUser().getId());
+            assertEquals(e.getUser().getName(), a.getUser().getName());
+            assertEquals(e.getUser().getEmail(), a.getUser().getEmail());
+            assertEquals(e.getUser().getDisplayName(), a.getUser().getDisplayName());
+            assertNull(a.getUser().getProfileImage());
+        }
+    }
+
+    private static ChatDTO.Message message(Long roomId, Long id, String text) {
+        final User user = User.builder().id(42L).name("tester").email("tester@example.com").displayName("테스터").build();
+        return ChatDTO.Message.builder()
+                .id(id)
+                .roomId(roomId)
+                .user(user)
+                .message(text)
+                .createdAt(LocalDateTime.of(2025, 10, 1, 12, 30, 15, 123_456_789))
+                .createdBy("42")
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.forestfull.chat.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterBusTest {
+
+    private static final String SECRET = "cluster-test-secret";
+
+    private final List<ClusterBus> nodes = new ArrayList<>();
+    private final Map<String, List<ClusterEvent>> received = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void closeNodes() {
+        nodes.forEach(ClusterBus::close);
+    }
+
+    @Test
+    void inMemoryNodesReceiveEachPublishOnceExceptOrigin() {
+        final InMemoryClusterBus.Hub hub = new InMemoryClusterBus.Hub();
+        for (int i = 0; i < 3; i++) join(new InMemoryClusterBus("node-" + i, hub, new ClusterEventCodec()));
+
+        nodes.get(0).publish(new ClusterEvent.ParticipantCountDelta(1L, 1));
+
+        assertEquals(0, received.get("node-0").size());
+        assertEquals(List.of(new ClusterEvent.ParticipantCountDelta(1L, 1)), received.get("node-1"));
+        assertEquals(List.of(new ClusterEvent.ParticipantCountDelta(1L, 1)), received.get("node-2"));
+    }
+
+    @Test
+    void tcpNodesReceiveEachPublishOnceExceptOrigin() throws Exception {
+        final List<TcpClusterBus> tcpNodes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final TcpClusterBus node = tcpNode("node-" + i, SECRET);
+            tcpNodes.add(node);
+            join(node);
+        }
+        // 전체 연결 (자기 자신은 제외)
+        for (TcpClusterBus node : tcpNodes) {
+            for (TcpClusterBus peer : tcpNodes) {
+                if (peer != node) node.addPeer(new InetSocketAddress("127.0.0.1", peer.getLocalPort()));
+            }
+        }
+
+        tcpNodes.get(0).publish(new ClusterEvent.ParticipantCountDelta(7L, 1));
+        tcpNodes.get(1).publish(new ClusterEvent.ParticipantCountDelta(7L, -1));
+
+        awaitSize("node-0", 1);
+        awaitSize("node-1", 1);
+        awaitSize("node-2", 2);
+        TimeUnit.MILLISECONDS.sleep(200); // 중복 전달이 없는지 잠시 더 관찰
+
+        assertEquals(List.of(new ClusterEvent.ParticipantCountDelta(7L, -1)), received.get("node-0"));
+        assertEquals(List.of(new ClusterEvent.ParticipantCountDelta(7L, 1)), received.get("node-1"));
+        assertEquals(2, received.get("node-2").size());
+    }
+
+    @Test
+    void tcpNodeIgnoresPeerWithWrongSecret() throws Exception {
+        final TcpClusterBus trusted = tcpNode("trusted", SECRET);
+        final TcpClusterBus intruder = tcpNode("intruder", "wrong-secret");
+        final TcpClusterBus receiver = tcpNode("receiver", SECRET);
+        join(trusted);
+        join(intruder);
+        join(receiver);
+        trusted.addPeer(new InetSocketAddress("127.0.0.1", receiver.getLocalPort()));
+        intruder.addPeer(new InetSocketAddress("127.0.0.1", receiver.getLocalPort()));
+
+        intruder.publish(new ClusterEvent.ParticipantCountDelta(9L, 100));
+        trusted.publish(new ClusterEvent.ParticipantCountDelta(9L, 1));
+
+        awaitSize("receiver", 1);
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertEquals(List.of(new ClusterEvent.ParticipantCountDelta(9L, 1)), received.get("receiver"));
+    }
+
+    private static TcpClusterBus tcpNode(String nodeId, String secret) throws Exception {
+        return new TcpClusterBus(nodeId, "127.0.0.1", 0, secret, 1000, List.of(), new ClusterEventCodec());
+    }
+
+    private void join(ClusterBus node) {
+        nodes.add(node);
+        final List<ClusterEvent> events = new CopyOnWriteArrayList<>();
+        received.put(node.nodeId(), events);
+        node.subscribe(events::add);
+    }
+
+    private void awaitSize(String nodeId, int size) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (received.get(nodeId).size() < size && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(received.get(nodeId).size() >= size, nodeId + " did not receive " + size + " events");
+    }
+}
@@ -0,0 +1,110 @@
+package com.forestfull.chat.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PayloadEncodingInterceptorTest {
+
+    private static final byte[] JSON = "{\"roomId\":7,\"message\":\"안녕하세요\",\"seq\":3}".getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PayloadEncodingInterceptor interceptor = new PayloadEncodingInterceptor(true, 1000, 16, meterRegistry);
+    private final ChannelInterceptor outbound = interceptor.outboundInterceptor();
+
+    @Test
+    void cborIsNegotiatedOnlyOverRawWebSocket() throws Exception {
+        connect("raw", rawSession(), "cbor");
+        connect("sockjs", sockJsSession(), "cbor");
+        connect("json", rawSession(), null);
+
+        assertEquals(MimeTypeUtils.APPLICATION_OCTET_STREAM, contentTypeOf(send("raw", JSON)));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, contentTypeOf(send("sockjs", JSON)));
+        assertEquals(MimeTypeUtils.APPLICATION_JSON, contentTypeOf(send("json", JSON)));
+    }
+
+    @Test
+    void samePayloadIsTranscodedOnceForAllCborSessions() throws Exception {
+        connect("a", rawSession(), "cbor");
+        connect("b", rawSession(), "cbor");
+
+        final Message<?> first = send("a", JSON);
+        final Message<?> second = send("b", JSON);
+
+        assertSame(first.getPayload(), second.getPayload());
+        assertEquals("cbor", StompHeaderAccessor.wrap(first).getFirstNativeHeader(PayloadEncodingInterceptor.ENCODING_HEADER));
+        assertEquals(new ObjectMapper().readTree(JSON), new CBORMapper().readTree((byte[]) first.getPayload()));
+        assertEquals(1.0, meterRegistry.counter("chat.outbound.encoding.transcoded", "format", "cbor").count());
+        assertEquals(1.0, meterRegistry.counter("chat.outbound.encoding.reused", "format", "cbor").count());
+    }
+
+    @Test
+    void invalidJsonFallsBackToOriginalFrame() throws Exception {
+        connect("raw", rawSession(), "cbor");
+        final Message<byte[]> original = message("raw", "{\"broken\":".getBytes(StandardCharsets.UTF_8));
+
+        assertSame(original, outbound.preSend(original, null));
+    }
+
+    private void connect(String sessionId, WebSocketSession session, String encoding) throws Exception {
+        interceptor.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+
+        final StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setSessionAttributes(session.getAttributes());
+        if (encoding != null) connect.setNativeHeader(PayloadEncodingInterceptor.ENCODING_HEADER, encoding);
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), null);
+    }
+
+    private Message<?> send(String sessionId, byte[] payload) {
+        return outbound.preSend(message(sessionId, payload), null);
+    }
+
+    private static Message<byte[]> message(String sessionId, byte[] payload) {
+        final SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(sessionId);
+        headers.setDestination("/topic/rooms/7");
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, headers.getMessageHeaders());
+    }
+
+    private static Object contentTypeOf(Message<?> message) {
+        return SimpMessageHeaderAccessor.wrap(message).getContentType();
+    }
+
+    private static WebSocketSession rawSession() {
+        final WebSocketSession session = mock(WebSocketSession.class);
+        final Map<String, Object> attributes = new HashMap<>();
+        when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+
+    private static WebSocketSession sockJsSession() {
+        final SockJsSession session = mock(SockJsSession.class);
+        final Map<String, Object> attributes = new HashMap<>();
+        when(session.getAttributes()).thenReturn(attributes);
+        return session;
+    }
+}
@@ -0,0 +1,129 @@
+package com.forestfull.chat.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoomLaneExecutorTest {
+
+    private static final int LANES = 4;
+
+    private final RoomLaneExecutor executor = new RoomLaneExecutor(LANES, 1000, new SimpleMeterRegistry());
+
+    @AfterEach
+    void shutdown() {
+        executor.destroy();
+    }
+
+    @Test
+    void shardKeyIsRoomIdForRoomTopicsAndDestinationOtherwise() {
+        assertEquals("7", RoomLaneExecutor.shardKey("/topic/rooms/7"));
+        assertEquals("7", RoomLaneExecutor.shardKey("/topic/rooms/7/participants"));
+        assertEquals("participants", RoomLaneExecutor.shardKey("/topic/rooms/participants"));
+        assertEquals("/queue/errors", RoomLaneExecutor.shardKey("/queue/errors"));
+        assertEquals("", RoomLaneExecutor.shardKey(null));
+    }
+
+    @Test
+    void sameRoomRunsInSubmissionOrder() throws Exception {
+        final int count = 500;
+        final List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            final int seq = i;
+            // 같은 방의 토픽과 참여자 토픽이 섞여도 한 lane 에서 순서대로 처리
+            final String destination = i % 2 == 0 ? "/topic/rooms/7" : "/topic/rooms/7/participants";
+            executor.execute(task(destination, () -> {
+                seen.add(seq);
+                done.countDown();
+            }));
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) assertEquals(i, seen.get(i));
+    }
+
+    @Test
+    void blockedRoomDoesNotHoldUpRoomOnAnotherLane() throws Exception {
+        final long blockedRoom = 1;
+        final long otherRoom = roomOnAnotherLane(blockedRoom);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blockedStarted = new CountDownLatch(1);
+        final CountDownLatch otherDone = new CountDownLatch(1);
+
+        executor.execute(task("/topic/rooms/" + blockedRoom, () -> {
+            blockedStarted.countDown();
+            await(release);
+        }));
+        assertTrue(blockedStarted.await(5, TimeUnit.SECONDS));
+
+        executor.execute(task("/topic/rooms/" + otherRoom, otherDone::countDown));
+        try {
+            assertTrue(otherDone.await(5, TimeUnit.SECONDS), "다른 lane 의 방은 막힌 방과 병렬로 처리되어야 함");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static long roomOnAnotherLane(long roomId) {
+        final int lane = laneOf(roomId);
+        long candidate = roomId + 1;
+        while (laneOf(candidate) == lane) candidate++;
+        assertNotEquals(lane, laneOf(candidate));
+        return candidate;
+    }
+
+    private static int laneOf(long roomId) {
+        return Math.floorMod(RoomLaneExecutor.shardKey("/topic/rooms/" + roomId).hashCode(), LANES);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MessageHandlingRunnable task(String destination, Runnable body) {
+        final SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setDestination(destination);
+        final Message<byte[]> message = MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+        final MessageHandler handler = m -> body.run();
+
+        return new MessageHandlingRunnable() {
+            @Override
+            public Message<?> getMessage() {
+                return message;
+            }
+
+            @Override
+            public MessageHandler getMessageHandler() {
+                return handler;
+            }
+
+            @Override
+            public void run() {
+                handler.handleMessage(message);
+            }
+        };
+    }
+}
@@ -0,0 +1,121 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 디스크 WAL 형식 왕복: 기록 → 반쯤 쓰인 꼬리를 남기고 종료(crash) → 재기동 시 재생
+ */
+class ChatMessageWalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysCommittedRecordsAndIgnoresTornTail() throws Exception {
+        final List<ChatDTO.Message> written = new ArrayList<>();
+
+        final ChatMessageWal first = wal();
+        first.start();
+        for (int i = 0; i < 3; i++) written.add(first.append(message(7L, 42L, "메시지 " + i)).get(5, TimeUnit.SECONDS));
+        first.stop();
+
+        // 마지막 group commit 이 fsync 전에 죽은 경우: 길이만큼 채워지지 않은 레코드
+        final Path segment = singleSegment();
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(segment, StandardOpenOption.APPEND))) {
+            out.writeInt(200);
+            out.writeInt(0x1234_5678);
+            out.write(new byte[17]);
+        }
+
+        final ChatMessageWal second = wal();
+        second.start();
+        assertSameMessages(written, second.getReplayed());
+        // DB 에 반영되지 않은 메시지는 방 캐시 적재 시 합칠 수 있도록 방별로 남음
+        assertSameMessages(written, second.getUnreplicated(7L));
+        assertTrue(second.getUnreplicated(8L).isEmpty());
+
+        // 재기동 후 기록은 새 세그먼트에 이어지고, 잘린 꼬리에 가려지지 않음
+        final ChatDTO.Message after = second.append(message(8L, null, "재기동 후")).get(5, TimeUnit.SECONDS);
+        assertTrue(after.getId() > written.get(written.size() - 1).getId());
+        written.add(after);
+        second.stop();
+
+        final ChatMessageWal third = wal();
+        third.start();
+        assertSameMessages(written, third.getReplayed());
+        third.stop();
+    }
+
+    private ChatMessageWal wal() {
+        // DB 가 내려가 있어 재생 대상이 그대로 남는 상황
+        final ChatMessageMapper mapper = mock(ChatMessageMapper.class);
+        doThrow(new IllegalStateException("db down")).when(mapper).saveMessagesWithIds(anyList());
+
+        final ChatMessageWal wal = new ChatMessageWal(mapper, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(wal, "enabled", true);
+        ReflectionTestUtils.setField(wal, "dir", dir.toString());
+        ReflectionTestUtils.setField(wal, "workerId", 1);
+        ReflectionTestUtils.setField(wal, "queueCapacity", 100);
+        ReflectionTestUtils.setField(wal, "maxBatch", 10);
+        ReflectionTestUtils.setField(wal, "groupCommitMillis", 1L);
+        ReflectionTestUtils.setField(wal, "segmentBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(wal, "replicateBatch", 10);
+        ReflectionTestUtils.setField(wal, "maxLag", 1000L);
+        ReflectionTestUtils.setField(wal, "retryMaxMillis", 50L);
+        return wal;
+    }
+
+    private Path singleSegment() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            final List<Path> segments = files.filter(p -> p.getFileName().toString().startsWith("wal-")).toList();
+            assertEquals(1, segments.size());
+            return segments.get(0);
+        }
+    }
+
+    private static void assertSameMessages(List<ChatDTO.Message> expected, List<ChatDTO.Message> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final ChatDTO.Message e = expected.get(i);
+            final ChatDTO.Message a = actual.get(i);
+            assertEquals(e.getId(), a.getId());
+            assertEquals(e.getRoomId(), a.getRoomId());
+            assertEquals(e.getMessage(), a.getMessage());
+            assertEquals(e.getCreatedAt(), a.getCreatedAt());
+            assertEquals(e.getUser() == null ? null : e.getUser().getId(), a.getUser().getId());
+            assertEquals(e.getUser() == null ? null : e.getUser().getName(), a.getUser().getName());
+        }
+    }
+
+    private static ChatDTO.Message message(Long roomId, Long memberId, String text) {
+        final User user = memberId == null ? null : User.builder().id(memberId).name("tester").build();
+        return ChatDTO.Message.builder()
+                .roomId(roomId)
+                .user(user)
+                .type(ChatDTO.Message.MessageType.TALK)
+                .message(text)
+                .createdAt(LocalDateTime.of(2025, 10, 1, 12, 30, 15, 123_000_000))
+                .build();
+    }
+}
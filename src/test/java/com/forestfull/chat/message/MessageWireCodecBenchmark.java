@@ -0,0 +1,111 @@
+package com.forestfull.chat.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메시지당 전송 바이트/직렬화 시간: 전체 Message(User 포함) 매번 직렬화 vs WireMessage 1회 직렬화 + 재사용
+ * 측정: mvn test-compile 후 테스트 클래스패스로 이 클래스의 main 실행 (바이트 수를 먼저 출력하고 JMH 실행, JMH 옵션은 인자로 전달)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MessageWireCodecBenchmark {
+
+    // 브로드캐스트 1회 + 최근 메시지/재접속/스냅샷 조회로 다시 나가는 횟수 (가정)
+    static final int READS_PER_MESSAGE = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private MessageWireCodec codec;
+    private ChatDTO.Message message;
+
+    @Setup
+    public void setUp() {
+        codec = new MessageWireCodec(mapper, new SimpleMeterRegistry());
+        message = sampleMessage();
+    }
+
+    // 기존: 전송할 때마다 Message 전체를 직렬화
+    @Benchmark
+    public int full() throws Exception {
+        int bytes = 0;
+        for (int i = 0; i <= READS_PER_MESSAGE; i++) bytes += mapper.writeValueAsBytes(message).length;
+        return bytes;
+    }
+
+    // 변경: 한 번 직렬화하고, 조회 응답에는 바이트를 그대로 씀
+    @Benchmark
+    public int wire() throws Exception {
+        final EncodedMessage encoded = codec.refresh(message);
+        int bytes = encoded.size();
+        for (int i = 0; i < READS_PER_MESSAGE; i++) bytes += mapper.writeValueAsBytes(codec.encode(message)).length;
+        return bytes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final MessageWireCodecBenchmark sizes = new MessageWireCodecBenchmark();
+        sizes.setUp();
+        final int fullBytes = sizes.mapper.writeValueAsBytes(sizes.message).length;
+        final int wireBytes = sizes.codec.refresh(sizes.message).size();
+        System.out.printf("bytes/message: full=%d wire=%d (-%.1f%%)%n",
+                fullBytes, wireBytes, 100.0 * (fullBytes - wireBytes) / fullBytes);
+
+        // 시간은 메시지 1건당 (브로드캐스트 1회 + 조회 READS_PER_MESSAGE 회)
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(MessageWireCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static ChatDTO.Message sampleMessage() {
+        final User user = User.builder()
+                .id(42L)
+                .name("tester")
+                .password("$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01")
+                .email("tester@example.com")
+                .roles("ROLE_USER,ROLE_ADMIN")
+                .displayName("테스터")
+                .profileImage("/uploads/profile/42.png")
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .updatedAt(LocalDateTime.of(2025, 6, 1, 0, 0))
+                .createdBy("system")
+                .updatedBy("system")
+                .build();
+        return ChatDTO.Message.builder()
+                .id(1_234_567L)
+                .roomId(7L)
+                .user(user)
+                .type(ChatDTO.Message.MessageType.TALK)
+                .message("안녕하세요, 오늘 회의는 3시에 시작합니다.")
+                .createdAt(LocalDateTime.of(2025, 10, 1, 12, 30, 15))
+                .createdBy("42")
+                .epoch(1_760_000_000_000L)
+                .seq(128L)
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+package com.forestfull.chat.message;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MessageWireCodecTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final MessageWireCodec codec = new MessageWireCodec(mapper, new SimpleMeterRegistry());
+
+    @Test
+    void encodedMessageIsWrittenAsRawJsonInsideResponses() throws Exception {
+        final ChatDTO.Message message = sampleMessage();
+        final EncodedMessage encoded = codec.encode(message);
+        assertSame(encoded, codec.encode(message));
+
+        final ChatDTO.MessagePage page = ChatDTO.MessagePage.builder().messages(List.of(encoded, encoded)).build();
+        final JsonNode tree = mapper.readTree(mapper.writeValueAsBytes(page));
+        final JsonNode expected = mapper.readTree(mapper.writeValueAsBytes(MessageWireCodec.toWire(message)));
+
+        assertEquals(expected, tree.get("messages").get(0));
+        assertEquals(expected, tree.get("messages").get(1));
+        assertEquals(ChatDTO.WireMessage.VERSION, expected.get("v").asInt());
+        assertEquals("tester", expected.get("user").get("username").asText());
+        assertFalse(expected.get("user").has("password"));
+    }
+
+    private static ChatDTO.Message sampleMessage() {
+        final User user = User.builder()
+                .id(42L)
+                .name("tester")
+                .password("$2a$10$abcdefghijklmnopqrstuuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01")
+                .email("tester@example.com")
+                .roles("ROLE_USER,ROLE_ADMIN")
+                .displayName("테스터")
+                .profileImage("/uploads/profile/42.png")
+                .createdAt(LocalDateTime.of(2025, 1, 1, 0, 0))
+                .updatedAt(LocalDateTime.of(2025, 6, 1, 0, 0))
+                .createdBy("system")
+                .updatedBy("system")
+                .build();
+        return ChatDTO.Message.builder()
+                .id(1_234_567L)
+                .roomId(7L)
+                .user(user)
+                .type(ChatDTO.Message.MessageType.TALK)
+                .message("안녕하세요, 오늘 회의는 3시에 시작합니다.")
+                .createdAt(LocalDateTime.of(2025, 10, 1, 12, 30, 15))
+                .createdBy("42")
+                .epoch(1_760_000_000_000L)
+                .seq(128L)
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.forestfull.chat.message;
+
+import com.forestfull.chat.ChatDTO;
+import com.forestfull.chat.room.ChatRoomMapper;
+import com.forestfull.chat.room.RoomListCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentMessageCacheTest {
+
+    private final ChatMessageMapper mapper = mock(ChatMessageMapper.class);
+    private final ChatMessageWal wal = mock(ChatMessageWal.class);
+    private final ChatRoomMapper roomMapper = mock(ChatRoomMapper.class);
+    private final RoomListCache roomListCache = mock(RoomListCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RecentMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RecentMessageCache(mapper, wal, roomMapper, roomListCache, meterRegistry);
+        ReflectionTestUtils.setField(cache, "capacityPerRoom", 3);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(cache, "idleEvictMillis", 60_000L);
+        cache.registerMetrics();
+        when(roomListCache.contains(7L)).thenReturn(true);
+    }
+
+    @Test
+    void unknownRoomAllocatesNothing() {
+        assertEquals(List.of(), cache.getRecent(999L, 10));
+
+        verify(roomMapper).findRoomById(999L);
+        verify(mapper, never()).findRecentMessages(anyLong(), anyInt());
+        assertEquals(0.0, gauge("chat.message.recent-cache.rooms"));
+        assertEquals(0.0, gauge("chat.message.recent-cache.bytes"));
+    }
+
+    @Test
+    void roomCreatedOnAnotherNodeIsCheckedInDb() {
+        when(roomMapper.findRoomById(8L)).thenReturn(ChatDTO.Room.builder().id(8L).build());
+        when(mapper.findRecentMessages(8L, 3)).thenReturn(List.of(message(8L, 1L)));
+
+        assertEquals(List.of(1L), ids(cache.getRecent(8L, 10)));
+        assertEquals(1.0, gauge("chat.message.recent-cache.rooms"));
+    }
+
+    @Test
+    void emptyRingCountsAgainstBudgetUntilEvicted() {
+        when(mapper.findRecentMessages(7L, 3)).thenReturn(List.of());
+
+        assertEquals(List.of(), cache.getRecent(7L, 10));
+        assertTrue(gauge("chat.message.recent-cache.bytes") > 0);
+
+        cache.evict(7L);
+        assertEquals(0.0, gauge("chat.message.recent-cache.bytes"));
+    }
+
+    @Test
+    void loadMergesWalTailNotYetInDb() {
+        when(mapper.findRecentMessages(7L, 3)).thenReturn(List.of(message(7L, 2L), message(7L, 1L)));
+        // 4 는 WAL 조회 후 DB 에 반영되어 양쪽에 모두 있을 수 있음
+        when(wal.getUnreplicated(7L)).thenReturn(List.of(message(7L, 3L), message(7L, 4L)));
+
+        assertEquals(List.of(4L, 3L, 2L), ids(cache.getRecent(7L, 10)));
+
+        // 제거된 방을 다시 적재해도 WAL 에만 있는 메시지가 빠지지 않음
+        cache.evict(7L);
+        assertEquals(List.of(4L, 3L, 2L), ids(cache.getRecent(7L, 10)));
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private static List<Long> ids(List<ChatDTO.Message> messages) {
+        return messages.stream().map(ChatDTO.Message::getId).toList();
+    }
+
+    private static ChatDTO.Message message(Long roomId, Long id) {
+        return ChatDTO.Message.builder().id(id).roomId(roomId).message("메시지 " + id).build();
+    }
+}
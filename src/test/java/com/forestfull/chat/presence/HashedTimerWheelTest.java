@@ -0,0 +1,81 @@
+package com.forestfull.chat.presence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 휠 크기보다 긴 지연: 같은 슬롯을 여러 바퀴 도는 타이머가 제 바퀴에만 실행되고, 바퀴 사이에 취소하면 실행되지 않는지
+ */
+class HashedTimerWheelTest {
+
+    private static final long TICK_MILLIS = 10;
+    // 슬롯 4개 → 한 바퀴 40ms
+    private final HashedTimerWheel wheel = new HashedTimerWheel("timer-wheel-test", TICK_MILLIS, 4);
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void timersInSameSlotFireOnTheirOwnRound() throws Exception {
+        // 모두 같은 슬롯에 들어가고 0~3 바퀴 뒤에 만료
+        final List<Long> delays = List.of(135L, 15L, 95L, 55L);
+        final ConcurrentLinkedQueue<Long> fired = new ConcurrentLinkedQueue<>();
+        final CountDownLatch done = new CountDownLatch(delays.size());
+        final long start = System.nanoTime();
+
+        for (long delay : delays) {
+            wheel.schedule(() -> {
+                final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                // 등록 시점의 tick 내림 때문에 최대 한 tick 일찍 실행될 수 있음
+                if (elapsedMillis >= delay - TICK_MILLIS) fired.add(delay);
+                done.countDown();
+            }, delay);
+        }
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(15L, 55L, 95L, 135L), List.copyOf(fired));
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void cancelBetweenRoundsPreventsExecution() throws Exception {
+        final AtomicBoolean cancelledRan = new AtomicBoolean();
+        final CountDownLatch sentinel = new CountDownLatch(1);
+
+        final HashedTimerWheel.Timeout timeout = wheel.schedule(() -> cancelledRan.set(true), 95);
+        assertEquals(1, wheel.pendingCount());
+
+        // 휠에 옮겨져 자기 슬롯을 한 번 지난 뒤(남은 바퀴 감소 후) 취소
+        Thread.sleep(50);
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.pendingCount());
+
+        wheel.schedule(sentinel::countDown, 100);
+        assertTrue(sentinel.await(2, TimeUnit.SECONDS));
+        assertFalse(cancelledRan.get());
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void cancelAfterExecutionReturnsFalse() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final HashedTimerWheel.Timeout timeout = wheel.schedule(ran::countDown, 1);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.pendingCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.forestfull.chat.ratelimit;
+
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SendRateLimiterTest {
+
+    private static final User USER = User.builder().id(42L).name("tester").roles("ROLE_USER").build();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void userBucketRefillsAfterInterval() throws Exception {
+        // 초당 20개(50ms 간격), 최대 2개 연속
+        final SendRateLimiter limiter = new SendRateLimiter("ROLE_USER=20/2", "1000/1000", 60_000, meterRegistry);
+
+        assertNull(limiter.tryAcquire(USER, 1L));
+        assertNull(limiter.tryAcquire(USER, 1L));
+        assertEquals(SendRateLimiter.Scope.USER, limiter.tryAcquire(USER, 1L));
+
+        Thread.sleep(120);
+        assertNull(limiter.tryAcquire(USER, 1L));
+        assertEquals(1.0, rejected(SendRateLimiter.Scope.USER));
+    }
+
+    @Test
+    void roomRejectionRefundsUserToken() {
+        // 간격이 1초라 테스트 중에는 리필되지 않음
+        final SendRateLimiter limiter = new SendRateLimiter("ROLE_USER=1/3", "1/2", 60_000, meterRegistry);
+
+        assertNull(limiter.tryAcquire(USER, 1L));
+        assertNull(limiter.tryAcquire(USER, 1L));
+        // 방 한도에 걸린 전송은 사용자 토큰을 쓰지 않음
+        for (int i = 0; i < 5; i++) assertEquals(SendRateLimiter.Scope.ROOM, limiter.tryAcquire(USER, 1L));
+
+        assertNull(limiter.tryAcquire(USER, 2L));
+        assertEquals(SendRateLimiter.Scope.USER, limiter.tryAcquire(USER, 2L));
+        assertEquals(5.0, rejected(SendRateLimiter.Scope.ROOM));
+    }
+
+    @Test
+    void mostGenerousRoleLimitApplies() {
+        final SendRateLimiter limiter = new SendRateLimiter("ROLE_USER=1/1,ROLE_ADMIN=2/3", "1000/1000", 60_000, meterRegistry);
+        final User admin = User.builder().id(7L).name("admin").roles("ROLE_USER,ROLE_ADMIN").build();
+
+        for (int i = 0; i < 3; i++) assertNull(limiter.tryAcquire(admin, 1L));
+        assertEquals(SendRateLimiter.Scope.USER, limiter.tryAcquire(admin, 1L));
+    }
+
+    @Test
+    void roomIdIsRequired() {
+        final SendRateLimiter limiter = new SendRateLimiter("ROLE_USER=1/1", "1/1", 60_000, meterRegistry);
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire(USER, null));
+    }
+
+    private double rejected(SendRateLimiter.Scope scope) {
+        return meterRegistry.counter("chat.rate-limit.rejected", "scope", scope.name()).count();
+    }
+}
@@ -0,0 +1,185 @@
+package com.forestfull.common.token;
+
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenRotatorTest {
+
+    private static final long MEMBER_ID = 42L;
+    private static final User USER = User.builder().id(MEMBER_ID).name("tester").build();
+
+    private final JwtUtil jwtUtil = mock(JwtUtil.class);
+    // generateToken 이 refresh_token 행을 INSERT 하므로 호출 횟수 = 삽입된 행 수
+    private final JwtUtil.Refresh refresh = mock(JwtUtil.Refresh.class);
+    private final RefreshTokenMapper mapper = mock(RefreshTokenMapper.class);
+    private final RefreshTokenRotator rotator = new RefreshTokenRotator(jwtUtil, refresh, mapper, 10_000, 5_000, new SimpleMeterRegistry());
+
+    @Test
+    void concurrentCallersWithSameTokenShareOneRotation() throws Exception {
+        final int callers = 16;
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        givenToken("old");
+        when(refresh.validateAndGetUser("old")).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return USER;
+        });
+        when(jwtUtil.generateToken(USER)).thenReturn("access");
+        when(refresh.generateToken(USER)).thenReturn("new");
+
+        final ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            final List<Future<RefreshTokenRotator.Rotation>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) results.add(pool.submit(() -> rotator.rotate("old")));
+            // 첫 호출이 회전 중인 동안 나머지가 모두 들어오도록 잠시 붙잡아 둠
+            entered.await(5, TimeUnit.SECONDS);
+            Thread.sleep(100);
+            release.countDown();
+
+            final RefreshTokenRotator.Rotation first = results.get(0).get(5, TimeUnit.SECONDS);
+            assertNotNull(first);
+            for (Future<RefreshTokenRotator.Rotation> result : results) assertSame(first, result.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(refresh, times(1)).validateAndGetUser("old");
+        verify(refresh, times(1)).generateToken(USER);
+        verify(mapper, times(1)).deleteToken(MEMBER_ID, "old");
+    }
+
+    @Test
+    void previousTokenIsAcceptedWithinGraceWindowPerDevice() {
+        givenRotation("device-a", "new-a");
+        givenToken("device-b");
+        when(refresh.validateAndGetUser("device-b")).thenReturn(USER);
+        when(refresh.generateToken(USER)).thenReturn("new-a", "new-b");
+
+        final RefreshTokenRotator.Rotation a = rotator.rotate("device-a");
+        final RefreshTokenRotator.Rotation b = rotator.rotate("device-b");
+
+        // 다른 기기의 회전이 있어도 각자의 이전 토큰은 grace 로 같은 결과를 받음
+        assertSame(a, rotator.rotate("device-a"));
+        assertSame(b, rotator.rotate("device-b"));
+        assertEquals("new-a", a.refreshToken());
+        assertEquals("new-b", b.refreshToken());
+        verify(refresh, times(1)).validateAndGetUser("device-a");
+        verify(refresh, times(1)).validateAndGetUser("device-b");
+    }
+
+    @Test
+    void graceExpiresAfterWindow() {
+        final RefreshTokenRotator shortGrace = new RefreshTokenRotator(jwtUtil, refresh, mapper, 0, 5_000, new SimpleMeterRegistry());
+        givenRotation("old", "new");
+        assertNotNull(shortGrace.rotate("old"));
+
+        // 이전 토큰은 이미 DB 에서 지워졌으므로 grace 가 끝나면 검증에서 거부됨
+        when(refresh.validateAndGetUser("old")).thenReturn(null);
+        assertNull(shortGrace.rotate("old"));
+        verify(refresh, times(2)).validateAndGetUser("old");
+    }
+
+    @Test
+    void revokeDropsGraceResultsAndDeletesTokens() {
+        givenRotation("old", "new");
+        assertNotNull(rotator.rotate("old"));
+
+        rotator.revoke(MEMBER_ID);
+        verify(refresh).deleteTokenByUserId(MEMBER_ID);
+
+        when(refresh.validateAndGetUser("old")).thenReturn(null);
+        assertNull(rotator.rotate("old"));
+        verify(refresh, times(2)).validateAndGetUser("old");
+    }
+
+    @Test
+    void revokeWaitsForInFlightRotationBeforeDeletingTokens() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        givenRotation("old", "new");
+        when(refresh.validateAndGetUser("old")).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return USER;
+        });
+
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            final Future<RefreshTokenRotator.Rotation> rotation = pool.submit(() -> rotator.rotate("old"));
+            entered.await(5, TimeUnit.SECONDS);
+            final Future<?> revoked = pool.submit(() -> rotator.revoke(MEMBER_ID));
+            Thread.sleep(100);
+            verify(refresh, never()).deleteTokenByUserId(MEMBER_ID);
+
+            release.countDown();
+            assertNotNull(rotation.get(5, TimeUnit.SECONDS));
+            revoked.get(5, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 회전 중 발급된 토큰까지 폐기 대상에 포함되고, 이전 토큰은 grace 로 통과하지 않음
+        final InOrder order = inOrder(refresh);
+        order.verify(refresh).generateToken(USER);
+        order.verify(refresh).deleteTokenByUserId(MEMBER_ID);
+        when(refresh.validateAndGetUser("old")).thenReturn(null);
+        assertNull(rotator.rotate("old"));
+    }
+
+    @Test
+    void failedRotationIsNotCachedOrShared() {
+        when(refresh.getUserId("not-a-jwt")).thenReturn(null);
+        assertNull(rotator.rotate("not-a-jwt"));
+        verify(refresh, never()).validateAndGetUser(any());
+
+        givenToken("stale");
+        when(refresh.validateAndGetUser("stale")).thenReturn(null);
+        assertNull(rotator.rotate("stale"));
+
+        givenToken("broken");
+        when(refresh.validateAndGetUser("broken")).thenThrow(new IllegalStateException("db down"));
+        assertNull(rotator.rotate("broken"));
+
+        // 실패는 grace 로 남지 않아 다음 요청은 다시 검증함
+        when(refresh.validateAndGetUser("stale")).thenReturn(USER);
+        when(jwtUtil.generateToken(USER)).thenReturn("access");
+        when(refresh.generateToken(USER)).thenReturn("new");
+        assertNotNull(rotator.rotate("stale"));
+        verify(refresh, times(2)).validateAndGetUser("stale");
+        verify(refresh, times(1)).generateToken(USER);
+    }
+
+    private void givenToken(String token) {
+        when(refresh.getUserId(token)).thenReturn(MEMBER_ID);
+    }
+
+    private void givenRotation(String previous, String next) {
+        givenToken(previous);
+        when(refresh.validateAndGetUser(previous)).thenReturn(USER);
+        when(jwtUtil.generateToken(USER)).thenReturn("access");
+        when(refresh.generateToken(USER)).thenReturn(next);
+    }
+}
@@ -0,0 +1,80 @@
+package com.forestfull.common.token;
+
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenFilter 인증 비용 (요청당 ns): 검증 캐시 사용 / 미사용 비교
+ * 측정: mvn test-compile 후 테스트 클래스패스로 이 클래스의 main 실행 (JMH 옵션은 인자로 전달)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-benchmark-secret-key";
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private TokenFilter tokenFilter;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        final JwtUtil jwtUtil = new JwtUtil(SECRET);
+        final VerifiedTokenCache cache = new VerifiedTokenCache(jwtUtil, cached, 1000, new SimpleMeterRegistry());
+        // 유효한 access token 만 보내므로 refresh 경로(DB, 회전)는 타지 않음
+        tokenFilter = new TokenFilter(jwtUtil, new JwtUtil.Refresh(SECRET, null, null), new CookieUtil(), cache, null);
+        token = jwtUtil.generateToken(User.builder()
+                .id(42L)
+                .name("tester")
+                .email("tester@example.com")
+                .roles("ROLE_USER")
+                .displayName("테스터")
+                .profileImage("/uploads/profile/42.png")
+                .build());
+    }
+
+    @Benchmark
+    public int filter() throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/chat/rooms/1/messages");
+        request.setCookies(new Cookie(JwtUtil.TOKEN_TYPE.JWT.name(), token));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        tokenFilter.doFilter(request, response, new MockFilterChain());
+        if (response.getStatus() != 200) throw new IllegalStateException("unauthenticated: " + response.getStatus());
+        SecurityContextHolder.clearContext();
+        return response.getStatus();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(TokenFilterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,98 @@
+package com.forestfull.common.token;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.forestfull.domain.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VerifiedTokenCacheTest {
+
+    private static final String SECRET = "token-cache-test-secret-key";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET);
+
+    @Test
+    void cachedPrincipalIsReusedUntilExpiry() {
+        final VerifiedTokenCache cache = cache(1000);
+        final String token = jwtUtil.generateToken(sampleUser(42L));
+
+        final VerifiedTokenCache.Verified first = cache.verify(token);
+        assertSame(first, cache.verify(token));
+        assertEquals(42L, first.user().getId());
+        assertEquals("tester", first.user().getUsername());
+        assertTrue(first.expiresAtMillis() > System.currentTimeMillis());
+    }
+
+    @Test
+    void expiredTokenIsVerifiedAgainInsteadOfServedFromCache() throws Exception {
+        final VerifiedTokenCache cache = cache(1000);
+        final String token = shortLivedToken(42L);
+
+        final VerifiedTokenCache.Verified first = cache.verify(token);
+        assertSame(first, cache.verify(token));
+
+        sleepPast(first.expiresAtMillis());
+        assertThrows(TokenExpiredException.class, () -> cache.verify(token));
+    }
+
+    @Test
+    void fullCacheVerifiesWithoutCachingUntilExpiredEntriesAreEvicted() throws Exception {
+        final VerifiedTokenCache cache = cache(1);
+        final String shortLived = shortLivedToken(1L);
+        final String other = jwtUtil.generateToken(sampleUser(2L));
+
+        final VerifiedTokenCache.Verified cached = cache.verify(shortLived);
+
+        // 가득 찬 동안에는 검증만 하고 넣지 않음 (기존 항목은 그대로)
+        final VerifiedTokenCache.Verified uncached = cache.verify(other);
+        assertEquals(2L, uncached.user().getId());
+        assertNotSame(uncached, cache.verify(other));
+        assertSame(cached, cache.verify(shortLived));
+
+        // 만료된 항목을 정리한 뒤에는 자리가 생겨 캐시됨
+        sleepPast(cached.expiresAtMillis());
+        final VerifiedTokenCache.Verified afterEviction = cache.verify(other);
+        assertSame(afterEviction, cache.verify(other));
+    }
+
+    private VerifiedTokenCache cache(int maxEntries) {
+        return new VerifiedTokenCache(jwtUtil, true, maxEntries, new SimpleMeterRegistry());
+    }
+
+    // exp 는 초 단위로 잘리므로 최소 1초 이상 남도록 발급
+    private static String shortLivedToken(Long userId) {
+        final User user = sampleUser(userId);
+        return JWT.create()
+                .withSubject(String.valueOf(user.getId()))
+                .withClaim("roles", user.getRoles())
+                .withClaim("username", user.getUsername())
+                .withExpiresAt(new Date(System.currentTimeMillis() + 2000))
+                .sign(Algorithm.HMAC256(SECRET));
+    }
+
+    private static void sleepPast(long millis) throws InterruptedException {
+        final long wait = millis - System.currentTimeMillis() + 50;
+        if (wait > 0) Thread.sleep(wait);
+    }
+
+    private static User sampleUser(Long id) {
+        return User.builder()
+                .id(id)
+                .name("tester")
+                .email("tester@example.com")
+                .roles("ROLE_USER")
+                .displayName("테스터")
+                .profileImage("/uploads/profile/" + id + ".png")
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.forestfull.config;
+
+import com.forestfull.chat.cluster.ClusterBus;
+import com.forestfull.chat.cluster.ClusterEvent;
+import com.forestfull.chat.message.ChatMessageMapper;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.annotation.MapperScan;
+import org.mybatis.spring.mapper.ClassPathMapperScanner;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * DataSourceConfig 의 @MapperScan 설정 그대로 스캔했을 때 @Mapper 인터페이스만 매퍼로 등록되는지
+ */
+class DataSourceConfigTest {
+
+    @Test
+    void scansOnlyAnnotatedMappers() {
+        final Set<String> mappers = scannedMapperTypes();
+
+        assertTrue(mappers.contains(ChatMessageMapper.class.getName()));
+        assertFalse(mappers.contains(ClusterBus.class.getName()));
+        assertFalse(mappers.contains(ClusterEvent.class.getName()));
+        // 패키지 전용 인터페이스라 이름으로 확인
+        assertFalse(mappers.contains("com.forestfull.chat.search.Segment"));
+    }
+
+    static Set<String> scannedMapperTypes() {
+        final MapperScan scan = DataSourceConfig.class.getAnnotation(MapperScan.class);
+        final SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+
+        final ClassPathMapperScanner scanner = new ClassPathMapperScanner(registry);
+        scanner.setAnnotationClass(scan.annotationClass());
+        scanner.registerFilters();
+
+        return Arrays.stream(scan.basePackages())
+                .flatMap(basePackage -> scanner.findCandidateComponents(basePackage).stream())
+                .map(BeanDefinition::getBeanClassName)
+                .collect(Collectors.toSet());
+    }
+}